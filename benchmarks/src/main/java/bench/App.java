@@ -0,0 +1,162 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zugriff auf die Klassen der Anwendung. Diese liegen im Standardpaket,
+ * JMH verlangt für Benchmarks aber ein eigenes Paket, und aus einem Paket
+ * heraus lässt sich das Standardpaket nicht importieren. Die Methoden
+ * werden daher einmal als <code>static final MethodHandle</code>
+ * nachgeschlagen; der JIT behandelt sie als Konstante und ruft das Ziel
+ * direkt auf, sodass kein Reflection‑Aufwand in die Messung fällt.
+ *
+ * Objekte der Anwendung werden hier als <code>Object</code> weitergereicht.
+ */
+final class App {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final Class<?> UNTIS_PARSER = type("UntisParser");
+    private static final Class<?> COURSE_MATCHER = type("CourseMatcher");
+    private static final Class<?> COURSE_INDEX = type("CourseIndex");
+    private static final Class<?> TIMETABLE_MATCHER = type("TimetableMatcher");
+    private static final Class<?> EVA_OVERLAP_SERVICE = type("EvaOverlapService");
+    private static final Class<?> PLAN_ENTRY = type("PlanEntry");
+
+    private static final MethodHandle NEW_UNTIS_PARSER = constructor(UNTIS_PARSER);
+    private static final MethodHandle PARSE = method(UNTIS_PARSER, "parse", Map.class, String.class);
+    private static final MethodHandle SPLIT_BY_DAY = method(UNTIS_PARSER, "splitByDay", LinkedHashMap.class, String.class);
+    private static final MethodHandle PARSE_PLAN = method(UNTIS_PARSER, "parsePlan", type("ParsedPlan"), String.class);
+
+    private static final MethodHandle NEW_COURSE_MATCHER = constructor(COURSE_MATCHER);
+    private static final MethodHandle MATCH_STATUS = method(COURSE_MATCHER, "matchStatus", type("CourseMatcher$MatchStatus"), String.class, String.class, List.class);
+    private static final MethodHandle NEW_COURSE_INDEX = constructor(COURSE_INDEX, List.class);
+    private static final MethodHandle INDEX_MATCH_STATUS = method(COURSE_INDEX, "matchStatus", type("CourseMatcher$MatchStatus"), String.class, String.class);
+
+    private static final MethodHandle NEW_TIMETABLE_MATCHER = constructor(TIMETABLE_MATCHER, String.class);
+    private static final MethodHandle MATCHES = method(TIMETABLE_MATCHER, "matches", boolean.class, String.class, String.class, String.class);
+
+    private static final MethodHandle NEW_EVA_OVERLAP_SERVICE = constructor(EVA_OVERLAP_SERVICE);
+    private static final MethodHandle FILTER_EVA = method(EVA_OVERLAP_SERVICE, "filterEva", LinkedHashMap.class, Map.class, List.class, TIMETABLE_MATCHER);
+
+    private static final MethodHandle ENTRY_FACH = getter(PLAN_ENTRY, "fach");
+    private static final MethodHandle ENTRY_LEHRER = getter(PLAN_ENTRY, "lehrer");
+    private static final MethodHandle ENTRY_STUNDE = getter(PLAN_ENTRY, "stunde");
+
+    private App() {}
+
+    static Object untisParser() throws Throwable {
+        return (Object) NEW_UNTIS_PARSER.invokeExact();
+    }
+
+    static Map<?, ?> parse(Object parser, String text) throws Throwable {
+        return (Map<?, ?>) PARSE.invokeExact(parser, text);
+    }
+
+    static LinkedHashMap<?, ?> splitByDay(Object parser, String text) throws Throwable {
+        return (LinkedHashMap<?, ?>) SPLIT_BY_DAY.invokeExact(parser, text);
+    }
+
+    static Object parsePlan(Object parser, String text) throws Throwable {
+        return (Object) PARSE_PLAN.invokeExact(parser, text);
+    }
+
+    static Object courseMatcher() throws Throwable {
+        return (Object) NEW_COURSE_MATCHER.invokeExact();
+    }
+
+    static Object matchStatus(Object matcher, String fach, String lehrer, List<String> courses) throws Throwable {
+        return (Object) MATCH_STATUS.invokeExact(matcher, fach, lehrer, courses);
+    }
+
+    static Object courseIndex(List<String> courses) throws Throwable {
+        return (Object) NEW_COURSE_INDEX.invokeExact(courses);
+    }
+
+    static Object matchStatus(Object index, String fach, String lehrer) throws Throwable {
+        return (Object) INDEX_MATCH_STATUS.invokeExact(index, fach, lehrer);
+    }
+
+    static Object timetableMatcher(String text) throws Throwable {
+        return (Object) NEW_TIMETABLE_MATCHER.invokeExact(text);
+    }
+
+    static boolean matches(Object timetable, String fach, String lehrer, String stunde) throws Throwable {
+        return (boolean) MATCHES.invokeExact(timetable, fach, lehrer, stunde);
+    }
+
+    static Object evaOverlapService() throws Throwable {
+        return (Object) NEW_EVA_OVERLAP_SERVICE.invokeExact();
+    }
+
+    // timetable darf null sein
+    static LinkedHashMap<?, ?> filterEva(Object service, Map<?, ?> byDay, List<String> courses, Object timetable) throws Throwable {
+        return (LinkedHashMap<?, ?>) FILTER_EVA.invokeExact(service, byDay, courses, timetable);
+    }
+
+    /**
+     * Fach, Lehrer und Stunde aller Einträge eines geparsten Plans, damit
+     * die Schleifen in den Benchmarks nur noch die gemessene Methode
+     * aufrufen.
+     */
+    static List<String[]> entries(Map<?, ?> byDay) throws Throwable {
+        List<String[]> out = new ArrayList<>();
+        for (Object day : byDay.values()) {
+            for (Object e : (List<?>) day) {
+                out.add(new String[] {
+                        (String) ENTRY_FACH.invokeExact(e),
+                        (String) ENTRY_LEHRER.invokeExact(e),
+                        (String) ENTRY_STUNDE.invokeExact(e)});
+            }
+        }
+        return out;
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Klasse der Anwendung fehlt: " + name, e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... params) {
+        try {
+            MethodHandle h = LOOKUP.findConstructor(owner, MethodType.methodType(void.class, params));
+            return h.asType(h.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Empfänger sowie Parameter und Rückgabewerte aus dem Standardpaket (Name ohne Punkt) werden zu Object
+    private static MethodHandle method(Class<?> owner, String name, Class<?> returnType, Class<?>... params) {
+        try {
+            MethodHandle h = LOOKUP.findVirtual(owner, name, MethodType.methodType(returnType, params));
+            MethodType t = h.type().changeParameterType(0, Object.class);
+            for (int i = 1; i < t.parameterCount(); i++) {
+                if (t.parameterType(i).getName().indexOf('.') < 0 && !t.parameterType(i).isPrimitive()) {
+                    t = t.changeParameterType(i, Object.class);
+                }
+            }
+            if (returnType.getName().indexOf('.') < 0 && !returnType.isPrimitive()) t = t.changeReturnType(Object.class);
+            return h.asType(t);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle getter(Class<?> owner, String field) {
+        try {
+            MethodHandle h = LOOKUP.findGetter(owner, field, String.class);
+            return h.asType(h.type().changeParameterType(0, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kursabgleich für alle Einträge eines Plans: einmal über
+ * <code>CourseMatcher.matchStatus</code> (baut pro Aufruf den Index neu)
+ * und einmal über einen einmal gebauten <code>CourseIndex</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourseMatcherBenchmark {
+    @Param({"1", "5", "20", "65"})
+    public int days;
+
+    private Object matcher;
+    private Object index;
+    private List<String[]> entries;
+    private List<String> courses;
+
+    @Setup
+    public void setup() throws Throwable {
+        entries = App.entries(App.parse(App.untisParser(), SyntheticData.plan(days)));
+        courses = SyntheticData.courses(14);
+        matcher = App.courseMatcher();
+        index = App.courseIndex(courses);
+    }
+
+    @Benchmark
+    public void matchStatus(Blackhole bh) throws Throwable {
+        for (String[] e : entries) bh.consume(App.matchStatus(matcher, e[0], e[1], courses));
+    }
+
+    @Benchmark
+    public void matchStatusIndexed(Blackhole bh) throws Throwable {
+        for (String[] e : entries) bh.consume(App.matchStatus(index, e[0], e[1]));
+    }
+}
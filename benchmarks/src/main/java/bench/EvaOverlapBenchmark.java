@@ -0,0 +1,55 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>EvaOverlapService.filterEva</code> mit Kursliste, mit und ohne
+ * Stundenplan, auf einem Plan mit einem Tag bis zu einem ganzen Halbjahr.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaOverlapBenchmark {
+    @Param({"1", "5", "20", "65"})
+    public int days;
+
+    private Object service;
+    private Map<?, ?> byDay;
+    private List<String> courses;
+    private Object timetable;
+
+    @Setup
+    public void setup() throws Throwable {
+        service = App.evaOverlapService();
+        byDay = App.parse(App.untisParser(), SyntheticData.plan(days));
+        courses = SyntheticData.courses(14);
+        timetable = App.timetableMatcher(SyntheticData.timetable(1));
+    }
+
+    @Benchmark
+    public Map<?, ?> filterEva() throws Throwable {
+        return App.filterEva(service, byDay, courses, timetable);
+    }
+
+    @Benchmark
+    public Map<?, ?> filterEvaWithoutTimetable() throws Throwable {
+        return App.filterEva(service, byDay, courses, null);
+    }
+}
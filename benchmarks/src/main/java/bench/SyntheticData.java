@@ -0,0 +1,99 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Erzeugt künstliche, aber realistisch aufgebaute Eingaben für die
+ * Benchmarks: Vertretungspläne mit beliebig vielen Tagen, Stundenplantexte
+ * wie aus der PDF und Kurslisten im Moodle‑Format. Ein fester Startwert
+ * sorgt dafür, dass jeder Lauf dieselben Daten bekommt.
+ */
+public class SyntheticData {
+    private static final String[] SUBJECTS = {"M", "D", "E", "PH", "CH", "BI", "GE", "EK", "SW", "KU", "MU", "IF", "SP", "F", "L", "PL", "KR", "ER"};
+    private static final String[] LEVELS = {"GK1", "GK2", "GK3", "LK1", "LK2", "ZK1"};
+    private static final String[] TEACHERS = {"MUE", "SCH", "WGM", "BEC", "HOF", "KRA", "LEH", "NEU", "OTT", "PAU", "RIC", "STE", "VOG", "WEB", "ZIM", "BRA"};
+    private static final String[] ROOMS = {"A101", "A102", "B201", "B204", "C12", "SH1", "---"};
+    private static final String[] INFOS = {"EVA", "EVA", "Vertretung", "Raumänderung", "Entfall", "VA"};
+    private static final String[] WEEKDAYS = {"Montag", "Dienstag", "Mittwoch", "Donnerstag", "Freitag"};
+
+    // Vertretungszeilen pro Tag
+    private static final int LINES_PER_DAY = 60;
+
+    private SyntheticData() {}
+
+    /**
+     * Plantext mit <code>days</code> Tagen im Format von
+     * <code>BonniwebClient.planText</code>: Tagesüberschrift, Kopfzeile
+     * und je Tag einige Dutzend Zeilen, überwiegend in Spalten mit
+     * doppelten Leerzeichen, ein Teil in der kompakten Form ohne
+     * Leerzeichen.
+     */
+    public static String plan(int days) {
+        Random r = new Random(42);
+        StringBuilder sb = new StringBuilder(days * LINES_PER_DAY * 40);
+        sb.append("Vertretungsplan Q2\n\n");
+        for (int d = 0; d < days; d++) {
+            int day = 1 + d % 28;
+            int month = 1 + (d / 28) % 12;
+            sb.append(day).append('.').append(month).append(". ").append(WEEKDAYS[d % WEEKDAYS.length]).append('\n');
+            if (d == days - 1 && days > 1) sb.append("Vertretungen sind nicht freigegeben\n");
+            sb.append("Klasse(n)Stunde(Fach)RaumVertreterArtText\n");
+            for (int i = 0; i < LINES_PER_DAY; i++) {
+                String klasse = "Q2";
+                int hour = 1 + r.nextInt(10);
+                String fach = pick(r, SUBJECTS) + "-" + pick(r, LEVELS);
+                String raum = pick(r, ROOMS);
+                String lehrer = pick(r, TEACHERS);
+                String info = pick(r, INFOS);
+                if (r.nextInt(8) == 0 && !"---".equals(raum)) {
+                    sb.append(klasse).append(hour).append(fach).append(raum).append(lehrer).append(info);
+                } else {
+                    sb.append(klasse).append(' ').append(hour).append(' ').append(fach).append("  ")
+                      .append(raum).append(' ').append(lehrer).append(' ').append(info);
+                }
+                sb.append('\n');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stundenplantext einer Stufe wie aus der PDF: für jede Woche
+     * (<code>weeks</code>) zehn Stunden, in jeder Stunde mehrere Kurse mit
+     * Lehrer und Raum. Wie im echten PDF steht die Stundenzahl nur in der
+     * ersten Zeile einer Stunde.
+     */
+    public static String timetable(int weeks) {
+        Random r = new Random(7);
+        StringBuilder sb = new StringBuilder(weeks * 10 * 6 * 30);
+        for (int w = 0; w < weeks; w++) {
+            sb.append("Stundenplan Stufe Q2 Woche ").append(w + 1).append('\n');
+            sb.append("Montag Dienstag Mittwoch Donnerstag Freitag\n");
+            for (int hour = 1; hour <= 10; hour++) {
+                for (int k = 0; k < 6; k++) {
+                    if (k == 0) sb.append(hour).append(". ");
+                    sb.append(pick(r, SUBJECTS)).append('-').append(pick(r, LEVELS)).append(' ')
+                      .append(pick(r, TEACHERS)).append(' ').append(pick(r, ROOMS)).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // Kursliste eines Schülers im Moodle-Format, z. B. "Q2-E-WGM-GK2"
+    public static List<String> courses(int count) {
+        Random r = new Random(11);
+        List<String> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            courses.add("Q2-" + pick(r, SUBJECTS) + "-" + pick(r, TEACHERS) + "-" + pick(r, LEVELS));
+        }
+        return courses;
+    }
+
+    private static String pick(Random r, String[] values) {
+        return values[r.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <code>TimetableMatcher</code>: Aufbau des Index aus dem Stundenplantext
+ * (eine Woche bis ein Halbjahr) und <code>matches</code> für alle
+ * Einträge eines Plans mit einem Tag bis zu einem Halbjahr.
+ */
+public class TimetableMatcherBenchmark {
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Build {
+        // Wochen im Stundenplantext (eine PDF-Seite pro Woche)
+        @Param({"1", "4", "13"})
+        public int weeks;
+
+        private String text;
+
+        @Setup
+        public void setup() {
+            text = SyntheticData.timetable(weeks);
+        }
+
+        @Benchmark
+        public Object build() throws Throwable {
+            return App.timetableMatcher(text);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Matches {
+        @Param({"1", "5", "20", "65"})
+        public int days;
+
+        private Object matcher;
+        private List<String[]> entries;
+
+        @Setup
+        public void setup() throws Throwable {
+            matcher = App.timetableMatcher(SyntheticData.timetable(1));
+            entries = App.entries(App.parse(App.untisParser(), SyntheticData.plan(days)));
+        }
+
+        @Benchmark
+        public void matches(Blackhole bh) throws Throwable {
+            for (String[] e : entries) bh.consume(App.matches(matcher, e[0], e[1], e[2]));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsen des Vertretungsplans: <code>parse</code>, <code>splitByDay</code>
+ * und <code>parsePlan</code> auf einem Plan mit einem Tag bis zu einem
+ * ganzen Halbjahr.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UntisParserBenchmark {
+    // Tage im Plan: ein Tag, eine Woche, ein Monat, ein Halbjahr
+    @Param({"1", "5", "20", "65"})
+    public int days;
+
+    private Object parser;
+    private String plan;
+
+    @Setup
+    public void setup() throws Throwable {
+        parser = App.untisParser();
+        plan = SyntheticData.plan(days);
+    }
+
+    @Benchmark
+    public Map<?, ?> parse() throws Throwable {
+        return App.parse(parser, plan);
+    }
+
+    @Benchmark
+    public Map<?, ?> splitByDay() throws Throwable {
+        return App.splitByDay(parser, plan);
+    }
+
+    @Benchmark
+    public Object parsePlan() throws Throwable {
+        return App.parsePlan(parser, plan);
+    }
+}
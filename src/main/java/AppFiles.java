@@ -0,0 +1,61 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Kleiner Helfer, der festlegt, wo die Anwendung ihre internen Dateien
+ * (Sitzungen, Caches usw.) ablegt. Unter Windows ist das wie bei der
+ * Profildatei der Ordner <code>%APPDATA%\Vertretungsplan</code>, sonst
+ * <code>~/.vertretungsplan</code>.
+ */
+public final class AppFiles {
+    private AppFiles() {}
+
+    // Basisverzeichnis für alle Dateien der Anwendung
+    public static Path dataDir() {
+        String appData = System.getenv("APPDATA");
+        if (appData != null && !appData.isBlank()) {
+            return Path.of(appData, "Vertretungsplan");
+        }
+        return Path.of(System.getProperty("user.home"), ".vertretungsplan");
+    }
+
+    /**
+     * Speicherort der Profildatei der GUI: <code>%APPDATA%\Vertretungsplan</code>
+     * unter Windows, sonst das aktuelle Arbeitsverzeichnis. Liegt hier statt
+     * in <code>VertretungsplanApp</code>, damit auch die Kommandozeile die
+     * Profile lesen kann, ohne JavaFX zu laden.
+     */
+    public static Path profilePath() {
+        String appData = System.getenv("APPDATA");
+        if (appData == null || appData.isBlank()) {
+            return Path.of("profile.properties");
+        }
+        return Path.of(appData, "Vertretungsplan", "profile.properties");
+    }
+
+    // Liefert den Pfad einer Datei im Datenverzeichnis
+    public static Path resolve(String name) {
+        return dataDir().resolve(name);
+    }
+
+    // Legt das Verzeichnis einer Datei an; Fehler werden ignoriert, der
+    // anschließende Schreibversuch meldet sie ohnehin
+    public static void ensureParentDir(Path file) {
+        try {
+            Path dir = file.getParent();
+            if (dir != null) Files.createDirectories(dir);
+        } catch (Exception ignored) {}
+    }
+
+    /**
+     * Beschränkt die Zugriffsrechte einer Datei auf den aktuellen Benutzer
+     * (rw-------). Auf Dateisystemen ohne POSIX‑Rechte (Windows) passiert
+     * nichts; dort liegt das Datenverzeichnis ohnehin im Benutzerprofil.
+     */
+    public static void restrictToOwner(Path file) {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (Exception ignored) {}
+    }
+}
@@ -0,0 +1,257 @@
+import org.jsoup.nodes.Document;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Aktualisiert viele Profile in einem Durchgang. Vertretungsplan und
+ * Stundenplan‑PDF sind für alle Schüler gleich; sie werden daher nur
+ * einmal (mit der ersten erfolgreichen Sitzung) geladen und geparst. Pro
+ * Profil bleiben nur Login und Kursliste übrig; der Abgleich läuft am Ende
+ * für alle Profile zusammen über einen <code>EnrollmentIndex</code>.
+ *
+ * Die Profile werden mit einer festen Anzahl Threads parallel
+ * abgearbeitet, damit bonniweb nicht mit allen Anfragen gleichzeitig
+ * belastet wird.
+ */
+public class BatchRefresh {
+
+    // Zugangsdaten eines Profils, wie sie in der profile.properties stehen
+    public static class Profile {
+        public final String key;
+        public final String username;
+        public final String password;
+
+        public Profile(String key, String username, String password) {
+            this.key = key;
+            this.username = username;
+            this.password = password;
+        }
+    }
+
+    // Ergebnis für ein einzelnes Profil; error ist null bei Erfolg
+    public static class ProfileResult {
+        public final Profile profile;
+        public final List<String> courses;
+        public final LinkedHashMap<String, List<EvaMatch>> matches;
+        public final long millis;
+        public final String error;
+
+        ProfileResult(Profile profile, List<String> courses, LinkedHashMap<String, List<EvaMatch>> matches, long millis, String error) {
+            this.profile = profile;
+            this.courses = courses;
+            this.matches = matches;
+            this.millis = millis;
+            this.error = error;
+        }
+    }
+
+    // Gesamtergebnis eines Durchgangs
+    public static class Result {
+        public final List<ProfileResult> profiles;
+        public final String dayToday;
+        public final String dayTomorrow;
+        public final long totalMillis;
+        // warum der Stundenplan fehlt (gilt für alle Profile); null, wenn er gelesen wurde
+        public final String timetableError;
+
+        Result(List<ProfileResult> profiles, String dayToday, String dayTomorrow, long totalMillis, String timetableError) {
+            this.profiles = profiles;
+            this.dayToday = dayToday;
+            this.dayTomorrow = dayTomorrow;
+            this.totalMillis = totalMillis;
+            this.timetableError = timetableError;
+        }
+
+        // Durchsatz in Profilen pro Sekunde
+        public double profilesPerSecond() {
+            return totalMillis <= 0 ? profiles.size() : profiles.size() * 1000.0 / totalMillis;
+        }
+    }
+
+    // einmal geladene und geparste gemeinsame Dokumente
+    private static class Shared {
+        final ParsedPlan plan;
+        final TimetableMatcher timetable;
+        // Fehler beim Laden oder Lesen des Stundenplans; der Abgleich läuft dann ohne ihn
+        final String timetableError;
+
+        Shared(ParsedPlan plan, TimetableMatcher timetable, String timetableError) {
+            this.plan = plan;
+            this.timetable = timetable;
+            this.timetableError = timetableError;
+        }
+    }
+
+    private static final long SHARED_TIMEOUT_SECONDS = 120;
+
+    private final String planResourceUrl;
+    private final String timetablePdfUrl;
+    private final int parallelism;
+    private final SessionPool sessions;
+
+    public BatchRefresh(String planResourceUrl, String timetablePdfUrl, int parallelism, SessionPool sessions) {
+        this.planResourceUrl = planResourceUrl;
+        this.timetablePdfUrl = timetablePdfUrl;
+        this.parallelism = Math.max(1, parallelism);
+        this.sessions = sessions;
+    }
+
+    /**
+     * Liest alle Profile aus einer profile.properties im Format der GUI
+     * (<code>profiles=a,b</code> und <code>profile.a.username</code> usw.).
+     */
+    public static List<Profile> loadProfiles(Path path) throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            props.load(in);
+        }
+        return profiles(props);
+    }
+
+    // alle Profile mit Benutzername und Passwort aus bereits geladenen Properties
+    public static List<Profile> profiles(Properties props) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String p : props.getProperty("profiles", "").split(",")) {
+            String s = p.trim();
+            if (!s.isEmpty() && !"default".equalsIgnoreCase(s)) names.add(s);
+        }
+        List<Profile> profiles = new ArrayList<>();
+        for (String key : names) {
+            String user = props.getProperty("profile." + key + ".username", "").trim();
+            String pass = props.getProperty("profile." + key + ".password", "");
+            if (user.isEmpty() || pass.isEmpty()) continue;
+            profiles.add(new Profile(key, user, pass));
+        }
+        return profiles;
+    }
+
+    /**
+     * Aktualisiert alle Profile. Sobald sich das erste Profil angemeldet
+     * hat, werden mit dessen Sitzung Plan und Stundenplan geladen; die
+     * übrigen Profile melden sich währenddessen an und laden ihre Kurse.
+     */
+    public Result run(List<Profile> profiles) {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "batch-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletableFuture<BonniwebClient> firstClient = new CompletableFuture<>();
+            // eigener Pool (FetchPipeline), damit die Profil-Threads weiter Logins abarbeiten
+            CompletableFuture<Shared> shared = firstClient.thenCompose(
+                    c -> FetchPipeline.submit(() -> loadShared(c), SHARED_TIMEOUT_SECONDS));
+
+            List<Future<ProfileResult>> futures = new ArrayList<>();
+            for (Profile p : profiles) {
+                futures.add(pool.submit(() -> refreshProfile(p, firstClient)));
+            }
+
+            List<ProfileResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (Exception e) {
+                    results.add(new ProfileResult(profiles.get(i), Collections.emptyList(), new LinkedHashMap<>(), 0, e.getMessage()));
+                }
+            }
+            // hat sich kein einziges Profil angemeldet, wird firstClient nie erfüllt
+            firstClient.completeExceptionally(new IllegalStateException("Kein Login erfolgreich."));
+
+            Shared s = null;
+            String sharedError = null;
+            try {
+                s = shared.join();
+            } catch (Exception e) {
+                sharedError = FetchPipeline.unwrap(e).getMessage();
+            }
+            results = match(results, s, sharedError);
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new Result(results, s == null ? null : s.plan.today, s == null ? null : s.plan.tomorrow, millis,
+                    s == null ? null : s.timetableError);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Login und Kursliste eines Profils; der Abgleich folgt später in match()
+    private ProfileResult refreshProfile(Profile p, CompletableFuture<BonniwebClient> firstClient) {
+        long start = System.nanoTime();
+        try {
+            BonniwebClient client = new BonniwebClient();
+            if (!sessions.login(client, p.username, p.password)) {
+                return new ProfileResult(p, Collections.emptyList(), new LinkedHashMap<>(), elapsed(start), "Login fehlgeschlagen.");
+            }
+            firstClient.complete(client);
+
+            List<String> courses = client.fetchCourses();
+            return new ProfileResult(p, courses, new LinkedHashMap<>(), elapsed(start), null);
+        } catch (Exception e) {
+            return new ProfileResult(p, Collections.emptyList(), new LinkedHashMap<>(), elapsed(start), e.getMessage());
+        }
+    }
+
+    /**
+     * Gleicht den gemeinsamen Plan in einem Durchlauf mit den Kursen aller
+     * erfolgreichen Profile ab. Fehlt der Plan, bekommen diese Profile den
+     * Fehler des gemeinsamen Abrufs.
+     */
+    private List<ProfileResult> match(List<ProfileResult> results, Shared s, String sharedError) {
+        Map<ProfileResult, List<String>> coursesByProfile = new LinkedHashMap<>();
+        for (ProfileResult r : results) {
+            if (r.error == null) coursesByProfile.put(r, r.courses);
+        }
+        Map<ProfileResult, LinkedHashMap<String, List<EvaMatch>>> matches = s == null
+                ? Collections.emptyMap()
+                : new EnrollmentIndex<>(coursesByProfile).filterEva(s.plan.entriesByDay, s.timetable);
+
+        List<ProfileResult> out = new ArrayList<>();
+        for (ProfileResult r : results) {
+            if (r.error != null) out.add(r);
+            else if (s == null) out.add(new ProfileResult(r.profile, Collections.emptyList(), new LinkedHashMap<>(), r.millis, sharedError));
+            else out.add(new ProfileResult(r.profile, r.courses, matches.get(r), r.millis, null));
+        }
+        return out;
+    }
+
+    // lädt und parst Plan und Stundenplan genau einmal für alle Profile
+    private Shared loadShared(BonniwebClient client) throws Exception {
+        CompletableFuture<PdfTextCache.Entry> pdf = FetchPipeline.submit(() -> client.fetchPdf(timetablePdfUrl), SHARED_TIMEOUT_SECONDS);
+        Document planDoc = client.fetchPlanDocumentFromResource(planResourceUrl);
+        if (planDoc == null) throw new IllegalStateException("Plan nicht erreichbar.");
+
+        ParsedPlan plan = new UntisParser().parsePlan(planDoc);
+
+        TimetableMatcher timetable = null;
+        String timetableError = null;
+        try {
+            PdfTextCache.Entry entry = pdf.join();
+            if (entry == null) timetableError = "keine PDF-Datei erhalten";
+            else if (entry.isBlank()) timetableError = "PDF enthält keinen Text";
+            else timetable = entry.matcher();
+        } catch (Exception e) {
+            timetableError = String.valueOf(FetchPipeline.unwrap(e).getMessage());
+        }
+        return new Shared(plan, timetable, timetableError);
+    }
+
+    private static long elapsed(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
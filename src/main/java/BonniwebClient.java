@@ -1,11 +1,13 @@
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -13,6 +15,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Kleiner HTTP‑Client, der mit der Website bonniweb.de kommuniziert. Er
@@ -20,17 +23,51 @@ import java.util.Set;
  * Methoden zum Abrufen des Vertretungsplantexts, des Stundenplan‑PDF‑Texts
  * und der Kursliste.
  *
- * Die Implementierung nutzt Jsoup für HTML‑Anfragen und -Parsing und PDFBox
- * zur Textextraktion aus PDF‑Dokumenten. Der Code ist bewusst in einem
+ * Alle Anfragen laufen über den gemeinsamen <code>HttpTransport</code>
+ * (ein einziger <code>java.net.http.HttpClient</code> mit wiederverwendeten
+ * Verbindungen); Jsoup dient nur noch zum Parsen der erhaltenen Seiten und
+ * PDFBox zur Textextraktion aus PDF‑Dokumenten. Der Code ist bewusst in einem
  * einfachen Stil gehalten, damit Anfänger der Ablauffolge folgen können.
  */
 public class BonniwebClient {
-    private static final String BASE_URL = "https://bonniweb.de";
+    private static final String DEFAULT_BASE_URL = "https://bonniweb.de";
     // pretend to be a modern browser, some sites reject unknown agents
     private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36";
 
-    // store cookies between requests so we stay logged in
-    private final Map<String, String> cookies = new HashMap<>();
+    // store cookies between requests so we stay logged in; concurrent map
+    // because FetchPipeline runs several requests of one session at once
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+    // Adresse der Moodle-Instanz, ohne "/" am Ende
+    private final String baseUrl;
+    // bedingte Anfragen für Plan und Stundenplan-PDF
+    private final HttpCache cache;
+    // Text und Matcher bereits gelesener Stundenplan-PDFs
+    private final PdfTextCache pdfTexts;
+    // gemeinsamer HTTP/2-Client mit Verbindungspool
+    private final HttpTransport transport = HttpTransport.shared();
+
+    public BonniwebClient() {
+        this(DEFAULT_BASE_URL);
+    }
+
+    /**
+     * Client für eine andere Moodle‑Adresse, z. B. den lokalen
+     * <code>MockBonniwebServer</code> (<code>http://127.0.0.1:8080</code>).
+     */
+    public BonniwebClient(String baseUrl) {
+        this(baseUrl, new HttpCache());
+    }
+
+    public BonniwebClient(String baseUrl, HttpCache cache) {
+        this(baseUrl, cache, PdfTextCache.shared());
+    }
+
+    // mit eigenem PdfTextCache, z. B. damit der LoadDriver nicht den Cache der Anwendung füllt
+    public BonniwebClient(String baseUrl, HttpCache cache, PdfTextCache pdfTexts) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.cache = cache;
+        this.pdfTexts = pdfTexts;
+    }
 
     /**
      * Meldet sich mit den übergebenen Zugangsdaten bei bonniweb an. Diese
@@ -40,19 +77,25 @@ public class BonniwebClient {
      * einem erfolgreichen Login aus.
      */
     public boolean login(String username, String password) throws Exception {
+        Metrics.Timer timer = Metrics.start("login");
+        try {
+            return doLogin(username, password);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private boolean doLogin(String username, String password) throws Exception {
         // erste Anfragen, um vor dem Login vorhandene Cookies zu erhalten
-        cookies.putAll(Jsoup.connect(BASE_URL + "/login/index.php?testsession=1")
-                .userAgent(USER_AGENT).method(Connection.Method.GET).execute().cookies());
-        cookies.putAll(Jsoup.connect(BASE_URL + "/index.php")
-                .userAgent(USER_AGENT).method(Connection.Method.GET).execute().cookies());
+        cookies.putAll(execute(request(baseUrl + "/login/index.php?testsession=1")).cookies);
+        cookies.putAll(execute(request(baseUrl + "/index.php")).cookies);
 
-        Connection.Response loginResp = Jsoup.connect(BASE_URL + "/login/index.php")
-                .cookies(cookies).userAgent(USER_AGENT).method(Connection.Method.GET).execute();
-        cookies.putAll(loginResp.cookies());
-        Document loginPage = loginResp.parse();
+        HttpTransport.Response loginResp = execute(request(baseUrl + "/login/index.php").cookies(cookies));
+        cookies.putAll(loginResp.cookies);
+        Document loginPage = parse(loginResp);
 
         Element loginForm = loginPage.selectFirst("form#login");
-        String action = loginForm != null ? loginForm.attr("action") : (BASE_URL + "/login/index.php");
+        String action = loginForm != null ? loginForm.attr("action") : (baseUrl + "/login/index.php");
 
         Map<String, String> data = new HashMap<>();
         if (loginForm != null) {
@@ -65,37 +108,60 @@ public class BonniwebClient {
         data.put("username", username);
         data.put("password", password);
 
-        Connection.Response resp = Jsoup.connect(action)
+        HttpTransport.Response resp = execute(request(action)
                 .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .referrer(BASE_URL + "/login/index.php")
-                .data(data)
-                .method(Connection.Method.POST)
-                .followRedirects(false)
-                .execute();
+                .header("Referer", baseUrl + "/login/index.php")
+                .form(data)
+                .followRedirects(false));
 
         // ein paar Weiterleitungen folgen, um das endgültige Ziel zu erreichen
-        cookies.putAll(resp.cookies());
+        cookies.putAll(resp.cookies);
         String location = resp.header("Location");
         for (int i = 0; location != null && i < 5; i++) {
-            String next = location.startsWith("http") ? location : (BASE_URL + location);
-            resp = Jsoup.connect(next)
+            String next = location.startsWith("http") ? location : (baseUrl + location);
+            resp = execute(request(next)
                     .cookies(cookies)
-                    .userAgent(USER_AGENT)
-                    .method(Connection.Method.GET)
-                    .followRedirects(false)
-                    .execute();
-            cookies.putAll(resp.cookies());
+                    .followRedirects(false));
+            cookies.putAll(resp.cookies);
             location = resp.header("Location");
         }
 
-        Document dash = Jsoup.connect(BASE_URL + "/my/")
-                .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .get();
+        Document dash = parse(execute(request(baseUrl + "/my/").cookies(cookies)));
         return !isLoginPage(dash);
     }
 
+    /**
+     * Billige Prüfung, ob die aktuellen Cookies noch zu einer gültigen
+     * Sitzung gehören. Moodle leitet nicht angemeldete Besucher vom
+     * Dashboard auf die Loginseite um; wir folgen der Weiterleitung daher
+     * nicht, sondern werten nur den Statuscode aus.
+     */
+    public boolean hasValidSession() throws Exception {
+        if (cookies.isEmpty()) return false;
+        HttpTransport.Response resp = transport.send(request(baseUrl + "/my/")
+                .cookies(cookies)
+                .followRedirects(false));
+        if (resp.status != 200) return false;
+        cookies.putAll(resp.cookies);
+        return !isLoginPage(parse(resp));
+    }
+
+    // Basis-URL des Servers (ohne abschließenden Schrägstrich)
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // Kopie der aktuellen Sitzungs‑Cookies, z. B. zum Speichern im SessionPool
+    public Map<String, String> getCookies() {
+        return new HashMap<>(cookies);
+    }
+
+    // Ersetzt die Sitzungs‑Cookies durch zuvor gespeicherte Werte
+    public void restoreCookies(Map<String, String> saved) {
+        cookies.clear();
+        cookies.putAll(saved);
+    }
+
     /**
      * Lädt eine Klartextversion des Vertretungsplans von der angegebenen URL
      * herunter. Es wird einfach die Seite abgeholt, geprüft, dass wir nicht
@@ -103,23 +169,66 @@ public class BonniwebClient {
      * normalisierten Zeilenenden zurückgegeben.
      */
     public String fetchPlanText(String url) throws Exception {
-        Document doc = Jsoup.connect(url)
-                .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .followRedirects(true)
-                .execute()
-                .parse();
-        if (isLoginPage(doc)) return "";
-        String text = doc.body().wholeText();
-        return text.replace("\r\n", "\n").replace("\r", "\n").replace('\u00A0', ' ');
+        Document doc = fetchPlanDocument(url);
+        return doc == null ? "" : planText(doc);
+    }
+
+    // Wie fetchPlanText, liefert aber das geparste HTML‑Dokument (oder null,
+    // wenn wir auf der Loginseite gelandet sind). Damit kann der
+    // UntisParser direkt über die Tabellenzeilen laufen.
+    //
+    // Der Plan wird über den HttpCache geladen: liegt bereits eine Antwort
+    // mit ETag/Last-Modified vor, wird sie bedingt angefragt; bei 304
+    // nehmen wir die gespeicherten Bytes, ohne den Inhalt erneut zu
+    // übertragen. Neue Antworten mit Validator werden gespeichert. Die
+    // Metrik zählt wie bei downloadCached nur die übertragenen Bytes.
+    public Document fetchPlanDocument(String url) throws Exception {
+        Metrics.Timer timer = Metrics.start("plan.download");
+        long received = 0;
+        try {
+            HttpCache.Entry cached = cache.get(url);
+            HttpTransport.Request req = request(url).cookies(cookies);
+            if (cached != null && cached.etag != null) req.header("If-None-Match", cached.etag);
+            if (cached != null && cached.lastModified != null) req.header("If-Modified-Since", cached.lastModified);
+
+            HttpTransport.Response resp = transport.send(req);
+            HttpCache.Entry page;
+            if (resp.status == 304 && cached != null) {
+                Metrics.count("http.not-modified");
+                page = cached;
+            } else {
+                received = resp.body.length;
+                if (resp.status >= 400) {
+                    throw new HttpStatusException("HTTP error fetching URL", resp.status, url);
+                }
+                page = new HttpCache.Entry(resp.body, resp.contentType(),
+                        resp.url, resp.header("ETag"), resp.header("Last-Modified"));
+                if (page.hasValidator()) cache.put(url, page);
+            }
+            Document doc = Jsoup.parse(new ByteArrayInputStream(page.body), page.charset(), page.url);
+            return isLoginPage(doc) ? null : doc;
+        } finally {
+            timer.stop(received);
+        }
+    }
+
+    // Textfassung eines Plan‑Dokuments mit normalisierten Zeilenenden
+    public static String planText(Document doc) {
+        return TextLines.normalize(doc.body().wholeText());
     }
 
     // Helfer, der der Moodle‑Ressourcenseite folgt und vor dem Herunterladen
     // die tatsächliche Plan‑URL ermittelt (die sich wöchentlich ändern kann).
     public String fetchPlanTextFromResource(String resourceUrl) throws Exception {
+        Document doc = fetchPlanDocumentFromResource(resourceUrl);
+        return doc == null ? "" : planText(doc);
+    }
+
+    // wie fetchPlanTextFromResource, aber mit dem Dokument statt dem Text
+    public Document fetchPlanDocumentFromResource(String resourceUrl) throws Exception {
         String planUrl = resolveLatestPlanUrl(resourceUrl);
-        if (planUrl == null || planUrl.isEmpty()) return "";
-        return fetchPlanText(planUrl);
+        if (planUrl == null || planUrl.isEmpty()) return null;
+        return fetchPlanDocument(planUrl);
     }
 
     /**
@@ -129,21 +238,76 @@ public class BonniwebClient {
      * wurden), geben wir einen leeren String zurück.
      */
     public String fetchPdfText(String pdfUrl) throws Exception {
-        Connection.Response resp = Jsoup.connect(pdfUrl)
-                .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .ignoreContentType(true)
-                .followRedirects(true)
-                .execute();
-        String contentType = resp.contentType();
-        if (contentType != null && contentType.toLowerCase().contains("text/html")) {
-            return "";
+        PdfTextCache.Entry pdf = fetchPdf(pdfUrl, true);
+        return pdf == null ? "" : pdf.text;
+    }
+
+    /**
+     * Wie <code>fetchPdfText</code>, liefert aber den Eintrag aus dem
+     * <code>PdfTextCache</code> (oder null bei HTML), über den sich auch der
+     * fertige <code>TimetableMatcher</code> abrufen lässt. PDFBox läuft nur,
+     * wenn dieses PDF noch nie extrahiert wurde.
+     *
+     * Das PDF wird direkt in eine temporäre Datei geladen und von dort
+     * gehasht und extrahiert (siehe <code>PdfTextExtractor</code>), damit
+     * auch große Stundenpläne nie als Ganzes im Heap liegen. Der Text wird
+     * dabei gleich in den Matcher gelesen; <code>Entry.text</code> ist
+     * null (siehe <code>fetchPdf(String, boolean)</code>).
+     */
+    public PdfTextCache.Entry fetchPdf(String pdfUrl) throws Exception {
+        return fetchPdf(pdfUrl, false);
+    }
+
+    // wie fetchPdf; mit keepText = true enthält der Eintrag auch den Text (z. B. für die Anzeige)
+    public PdfTextCache.Entry fetchPdf(String pdfUrl, boolean keepText) throws Exception {
+        Path pdf = Files.createTempFile("bonniweb", ".pdf");
+        try {
+            AppFiles.restrictToOwner(pdf);
+            String contentType = downloadCached(pdfUrl, pdf);
+            if (contentType != null && contentType.toLowerCase().contains("text/html")) {
+                return null;
+            }
+            return pdfTexts.get(pdf, PdfTextExtractor::index, keepText);
+        } finally {
+            Files.deleteIfExists(pdf);
         }
-        byte[] bytes = resp.bodyAsBytes();
-        try (PDDocument doc = PDDocument.load(bytes)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String textPdf = stripper.getText(doc);
-            return textPdf.replace("\r\n", "\n").replace("\r", "\n").replace('\u00A0', ' ');
+    }
+
+    /**
+     * Wie <code>fetchPlanDocument</code> bedingt über den
+     * <code>HttpCache</code>, schreibt den Inhalt aber in die Datei
+     * <code>target</code> statt ihn im Speicher zu halten. Bei 304 wird die
+     * gespeicherte Datei aus dem <code>HttpCache</code> dorthin kopiert,
+     * damit der Aufrufer eine Datei hat, die ihm niemand unter den Füßen
+     * austauscht. Liefert den Content-Type. Die Metrik zählt nur die
+     * tatsächlich übertragenen Bytes, bei 304 also 0.
+     */
+    private String downloadCached(String url, Path target) throws Exception {
+        Metrics.Timer timer = Metrics.start("pdf.download");
+        long received = 0;
+        try {
+            HttpCache.Entry cached = cache.getFile(url);
+            HttpTransport.Request req = request(url).cookies(cookies).saveTo(target);
+            if (cached != null && cached.etag != null) req.header("If-None-Match", cached.etag);
+            if (cached != null && cached.lastModified != null) req.header("If-Modified-Since", cached.lastModified);
+
+            HttpTransport.Response resp = transport.send(req);
+            if (resp.status == 304 && cached != null) {
+                Metrics.count("http.not-modified");
+                Files.copy(cached.file, target, StandardCopyOption.REPLACE_EXISTING);
+                return cached.contentType;
+            }
+            received = Files.exists(target) ? Files.size(target) : 0;
+            if (resp.status >= 400) {
+                throw new HttpStatusException("HTTP error fetching URL", resp.status, url);
+            }
+
+            HttpCache.Entry fresh = new HttpCache.Entry(null, target, resp.contentType(),
+                    resp.url, resp.header("ETag"), resp.header("Last-Modified"));
+            if (fresh.hasValidator()) cache.putFile(url, target, fresh);
+            return fresh.contentType;
+        } finally {
+            timer.stop(received);
         }
     }
 
@@ -155,15 +319,20 @@ public class BonniwebClient {
      * Links und wählen denjenigen mit der höchsten Wochenzahl im Namen aus.
      */
     public String resolveLatestPlanUrl(String resourceUrl) throws Exception {
-        Connection.Response resp = Jsoup.connect(resourceUrl)
-                .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .followRedirects(true)
-                .execute();
-        Document doc = resp.parse();
+        Metrics.Timer timer = Metrics.start("plan.resolve");
+        try {
+            return findPlanUrl(resourceUrl);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private String findPlanUrl(String resourceUrl) throws Exception {
+        HttpTransport.Response resp = execute(request(resourceUrl).cookies(cookies));
+        Document doc = parse(resp);
         if (isLoginPage(doc)) return "";
 
-        String finalUrl = resp.url().toString();
+        String finalUrl = resp.url;
         if (finalUrl.toLowerCase().contains(".htm")) {
             return finalUrl;
         }
@@ -236,10 +405,16 @@ public class BonniwebClient {
      * to preserve ordering.
      */
     public List<String> fetchCourses() throws Exception {
-        Document doc = Jsoup.connect(BASE_URL + "/my/courses.php")
-                .cookies(cookies)
-                .userAgent(USER_AGENT)
-                .get();
+        Metrics.Timer timer = Metrics.start("courses");
+        try {
+            return findCourses();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private List<String> findCourses() throws Exception {
+        Document doc = parse(execute(request(baseUrl + "/my/courses.php").cookies(cookies)));
         if (isLoginPage(doc)) return Collections.emptyList();
         Elements links = doc.select("a[href*='/course/view.php'], .coursebox .coursename a, .course-summaryitem a");
         Set<String> unique = new LinkedHashSet<>();
@@ -250,6 +425,27 @@ public class BonniwebClient {
         return new ArrayList<>(unique);
     }
 
+    // neue Anfrage mit unserem User-Agent
+    private HttpTransport.Request request(String url) {
+        return new HttpTransport.Request(url).header("User-Agent", USER_AGENT);
+    }
+
+    // schickt eine Anfrage ab und behandelt HTTP-Fehler (>= 400) wie Jsoup
+    // mit einer HttpStatusException
+    private HttpTransport.Response execute(HttpTransport.Request req) throws Exception {
+        HttpTransport.Response resp = transport.send(req);
+        if (resp.status >= 400) {
+            throw new HttpStatusException("HTTP error fetching URL", resp.status, resp.url);
+        }
+        return resp;
+    }
+
+    // parst den Inhalt einer Antwort als HTML; der Zeichensatz kommt aus
+    // dem Content-Type oder wird von Jsoup aus dem Dokument erkannt
+    private Document parse(HttpTransport.Response resp) throws Exception {
+        return Jsoup.parse(new ByteArrayInputStream(resp.body), resp.charset(), resp.url);
+    }
+
     // schnelle Heuristik, um zu entscheiden, ob eine abgeholte Seite
     // tatsächlich der Login-Bildschirm ist (in dem Fall sind wir nicht
     // authentifiziert)
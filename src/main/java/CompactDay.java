@@ -0,0 +1,189 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Die Einträge eines Plantages in Spalten statt als einzelne Objekte.
+ * Klasse, Fach, Raum und Lehrer stehen als Nummern aus dem gemeinsamen
+ * <code>StringPool.columns()</code>, die Info als Nummer aus dem Pool des
+ * Parse‑Durchlaufs, jeweils in einem <code>int[]</code>; die Stunde
+ * direkt als Zahl. Ein Eintrag kostet so 24 Byte statt eines
+ * <code>PlanEntry</code> mit sechs eigenen Strings.
+ *
+ * Nach außen ist die Klasse eine normale <code>List&lt;PlanEntry&gt;</code>:
+ * <code>get</code> baut einen <code>PlanEntry</code> aus den Werten des
+ * Pools, bestehender Code merkt also keinen Unterschied. Wer nur eine
+ * Spalte braucht (z. B. die Info beim EVA‑Filter), nimmt
+ * <code>info(i)</code> usw. und spart sich das Objekt.
+ *
+ * Einträge können nur angehängt werden (<code>add</code>); nicht
+ * threadsicher, solange noch angehängt wird.
+ */
+public class CompactDay extends AbstractList<PlanEntry> implements RandomAccess {
+    // Strings für die üblichen Stundenzahlen, damit stunde(i) nichts anlegt
+    private static final String[] HOURS = new String[100];
+    static {
+        for (int i = 0; i < HOURS.length; i++) HOURS[i] = Integer.toString(i);
+    }
+
+    // Klasse, Fach, Raum, Lehrer
+    private final StringPool columns;
+    // Info und Stunden, die keine einfache Zahl sind
+    private final StringPool pool;
+    private int[] klasse;
+    // >= 0: Stundenzahl; < 0: -(Nummer im Pool) - 1 für Stunden wie "03" oder "3-4"
+    private int[] stunde;
+    private int[] fach;
+    private int[] raum;
+    private int[] lehrer;
+    private int[] info;
+    private int size;
+
+    // mit eigenem Pool, z. B. für einen einzeln geparsten Tag
+    public CompactDay() {
+        this(new StringPool());
+    }
+
+    // pool: Pool des Parse‑Durchlaufs für die freien Texte
+    public CompactDay(StringPool pool) {
+        this(StringPool.columns(), pool);
+    }
+
+    CompactDay(StringPool columns, StringPool pool) {
+        this.columns = columns;
+        this.pool = pool;
+        klasse = new int[16];
+        stunde = new int[16];
+        fach = new int[16];
+        raum = new int[16];
+        lehrer = new int[16];
+        info = new int[16];
+    }
+
+    @Override
+    public boolean add(PlanEntry e) {
+        add(e.klasse, e.stunde, e.fach, e.raum, e.lehrer, e.info);
+        return true;
+    }
+
+    public void add(String klasse, String stunde, String fach, String raum, String lehrer, String info) {
+        if (size == this.klasse.length) grow(size * 2);
+        this.klasse[size] = columns.id(klasse);
+        this.stunde[size] = encodeHour(stunde);
+        this.fach[size] = columns.id(fach);
+        this.raum[size] = columns.id(raum);
+        this.lehrer[size] = columns.id(lehrer);
+        this.info[size] = pool.id(info);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public PlanEntry get(int i) {
+        checkIndex(i);
+        return new PlanEntry(columns.get(klasse[i]), stunde(i), columns.get(fach[i]),
+                columns.get(raum[i]), columns.get(lehrer[i]), pool.get(info[i]));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public String klasse(int i) {
+        checkIndex(i);
+        return columns.get(klasse[i]);
+    }
+
+    public String stunde(int i) {
+        checkIndex(i);
+        int h = stunde[i];
+        if (h < 0) return pool.get(-h - 1);
+        return h < HOURS.length ? HOURS[h] : Integer.toString(h);
+    }
+
+    // Stunde als Zahl oder -1, wenn sie keine einfache Zahl ist
+    public int hour(int i) {
+        checkIndex(i);
+        return Math.max(-1, stunde[i]);
+    }
+
+    public String fach(int i) {
+        checkIndex(i);
+        return columns.get(fach[i]);
+    }
+
+    public String raum(int i) {
+        checkIndex(i);
+        return columns.get(raum[i]);
+    }
+
+    public String lehrer(int i) {
+        checkIndex(i);
+        return columns.get(lehrer[i]);
+    }
+
+    public String info(int i) {
+        checkIndex(i);
+        return pool.get(info[i]);
+    }
+
+    // gibt nach dem Parsen den ungenutzten Platz der Spalten frei
+    public void trimToSize() {
+        if (size < klasse.length) grow(size);
+    }
+
+    // Spalten direkt vergleichen statt Einträge zu bauen; bei gleichen Pools genügen die Nummern
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof CompactDay) {
+            CompactDay d = (CompactDay) o;
+            if (size != d.size) return false;
+            if (d.pool == pool && d.columns == columns) {
+                return Arrays.equals(klasse, 0, size, d.klasse, 0, size)
+                        && Arrays.equals(stunde, 0, size, d.stunde, 0, size)
+                        && Arrays.equals(fach, 0, size, d.fach, 0, size)
+                        && Arrays.equals(raum, 0, size, d.raum, 0, size)
+                        && Arrays.equals(lehrer, 0, size, d.lehrer, 0, size)
+                        && Arrays.equals(info, 0, size, d.info, 0, size);
+            }
+            for (int i = 0; i < size; i++) {
+                if (!klasse(i).equals(d.klasse(i)) || !stunde(i).equals(d.stunde(i))
+                        || !fach(i).equals(d.fach(i)) || !raum(i).equals(d.raum(i))
+                        || !lehrer(i).equals(d.lehrer(i)) || !info(i).equals(d.info(i))) return false;
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    // einfache Zahlen ohne führende Null direkt, alles andere über den Pool
+    private int encodeHour(String s) {
+        int len = s == null ? 0 : s.length();
+        boolean plain = len > 0 && len <= 9 && (len == 1 || s.charAt(0) != '0');
+        for (int i = 0; plain && i < len; i++) {
+            char c = s.charAt(i);
+            plain = c >= '0' && c <= '9';
+        }
+        return plain ? Integer.parseInt(s) : -pool.id(s) - 1;
+    }
+
+    private void grow(int capacity) {
+        klasse = Arrays.copyOf(klasse, capacity);
+        stunde = Arrays.copyOf(stunde, capacity);
+        fach = Arrays.copyOf(fach, capacity);
+        raum = Arrays.copyOf(raum, capacity);
+        lehrer = Arrays.copyOf(lehrer, capacity);
+        info = Arrays.copyOf(info, capacity);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + ", Größe " + size);
+    }
+}
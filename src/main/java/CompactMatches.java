@@ -0,0 +1,61 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * EVA‑Treffer eines Tages als Zeilennummern in einen <code>CompactDay</code>
+ * plus ein Bit für <code>levelMismatch</code>. Ein Treffer kostet so ein
+ * <code>int</code> statt eines <code>EvaMatch</code> mit eigenem
+ * <code>PlanEntry</code>; <code>get</code> baut beides bei Bedarf.
+ *
+ * Die Hilfsmethoden <code>newList</code> und <code>add</code> wählen
+ * selbst: für einen <code>CompactDay</code> eine <code>CompactMatches</code>,
+ * sonst eine normale <code>ArrayList</code>.
+ */
+public class CompactMatches extends AbstractList<EvaMatch> implements RandomAccess {
+    private final CompactDay day;
+    private int[] rows = new int[4];
+    private final BitSet levelMismatch = new BitSet();
+    private int size;
+
+    public CompactMatches(CompactDay day) {
+        this.day = day;
+    }
+
+    // passende leere Trefferliste für die Einträge eines Tages
+    public static List<EvaMatch> newList(List<PlanEntry> day) {
+        return day instanceof CompactDay ? new CompactMatches((CompactDay) day) : new ArrayList<>();
+    }
+
+    // hängt den Eintrag aus Zeile row an eine mit newList angelegte Liste an
+    public static void add(List<EvaMatch> matches, int row, PlanEntry e, boolean levelMismatch) {
+        if (matches instanceof CompactMatches) {
+            ((CompactMatches) matches).addRow(row, levelMismatch);
+        } else {
+            matches.add(new EvaMatch(e, levelMismatch));
+        }
+    }
+
+    public void addRow(int row, boolean levelMismatch) {
+        if (row < 0 || row >= day.size()) throw new IndexOutOfBoundsException("Zeile " + row + ", Größe " + day.size());
+        if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+        rows[size] = row;
+        this.levelMismatch.set(size, levelMismatch);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public EvaMatch get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + ", Größe " + size);
+        return new EvaMatch(day.get(rows[i]), levelMismatch.get(i));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Einmal pro Kursliste aufgebauter Index für den Kursabgleich. Jeder Kurs
+ * wird beim Aufbau normalisiert (Leerzeichen und Unterstriche werden zu
+ * Bindestrichen, alles groß) und in seine durch Bindestriche getrennten
+ * Teile zerlegt. Für jedes Paar aufeinanderfolgender Teile (ohne den
+ * ersten) wird „Fach‑Lehrerpräfix“ mit einem und zwei Buchstaben des
+ * Lehrerteils eingetragen.
+ *
+ * <code>matchStatus</code> braucht so nur noch einen Hash‑Zugriff statt
+ * drei <code>contains</code>‑Suchen pro Kurs. Das Ergebnis ist dasselbe
+ * wie bisher in <code>CourseMatcher</code>: <code>-FACH-LEHRER</code>
+ * ist im Kurs genau dann enthalten, wenn ein Teil gleich dem Fach ist und
+ * der nächste Teil mit den ersten zwei Buchstaben des Lehrers beginnt.
+ */
+public class CourseIndex {
+    private static final Pattern LEVEL_PATTERN = Pattern.compile("-(GK|LK|ZK)(\\d)?");
+
+    // "FACH-L" bzw. "FACH-LE" -> normalisierte Kurse
+    private final Map<String, List<String>> byKey = new HashMap<>();
+
+    public CourseIndex(List<String> courses) {
+        for (String c : courses) {
+            String s = normalize(c);
+            for (String key : keys(s)) {
+                List<String> list = byKey.computeIfAbsent(key, k -> new ArrayList<>(1));
+                if (!list.contains(s)) list.add(s);
+            }
+        }
+    }
+
+    // Leerzeichen und Unterstriche werden zu Bindestrichen, alles groß
+    static String normalize(String course) {
+        return course.replace(' ', '-').replace('_', '-').toUpperCase();
+    }
+
+    // alle Schlüssel "FACH-L" und "FACH-LE", unter denen ein normalisierter Kurs gefunden wird
+    static List<String> keys(String normalizedCourse) {
+        List<String> keys = new ArrayList<>();
+        String[] parts = normalizedCourse.split("-", -1);
+        for (int i = 1; i + 1 < parts.length; i++) {
+            String teacherPart = parts[i + 1];
+            if (teacherPart.isEmpty()) continue;
+            keys.add(parts[i] + "-" + teacherPart.substring(0, 1));
+            if (teacherPart.length() >= 2) keys.add(parts[i] + "-" + teacherPart.substring(0, 2));
+        }
+        return keys;
+    }
+
+    /**
+     * Aus einem Plan‑Eintrag abgeleiteter Suchschlüssel samt Niveau
+     * (<code>levelType</code> leer, wenn der Eintrag kein Niveau nennt).
+     */
+    static class Query {
+        final String key;
+        final String levelType;
+        final String levelNum;
+
+        Query(String key, String levelType, String levelNum) {
+            this.key = key;
+            this.levelType = levelType;
+            this.levelNum = levelNum;
+        }
+
+        // passt der (normalisierte) Kurs zum Niveau des Eintrags?
+        boolean levelMatches(String normalizedCourse) {
+            return levelType.isEmpty() || courseMatchesLevel(normalizedCourse, levelType, levelNum);
+        }
+    }
+
+    // null, wenn der Eintrag mit keinem Kurs übereinstimmen kann
+    static Query query(String fach, String lehrer) {
+        if (fach == null || fach.isEmpty()) return null;
+        String subject = fach.split("-", 2)[0].trim().toUpperCase();
+        if (subject.isEmpty()) return null;
+
+        String teacher = lehrer == null ? "" : lettersOnly(lehrer).toUpperCase();
+        if (teacher.isEmpty()) return null;
+        String teacherShort2 = teacher.length() > 2 ? teacher.substring(0, 2) : teacher;
+
+        Matcher lm = LEVEL_PATTERN.matcher(fach.toUpperCase());
+        if (!lm.find()) return new Query(subject + "-" + teacherShort2, "", "");
+        return new Query(subject + "-" + teacherShort2, lm.group(1), lm.group(2) != null ? lm.group(2) : "");
+    }
+
+    /**
+     * Prüft, ob ein Plan‑Eintrag mit der Kursliste übereinstimmt (siehe
+     * <code>CourseMatcher.matchStatus</code>).
+     */
+    public CourseMatcher.MatchStatus matchStatus(String fach, String lehrer) {
+        Query q = query(fach, lehrer);
+        if (q == null) return CourseMatcher.MatchStatus.NONE;
+        List<String> candidates = byKey.get(q.key);
+        if (candidates == null) return CourseMatcher.MatchStatus.NONE;
+
+        for (String s : candidates) {
+            if (q.levelMatches(s)) return CourseMatcher.MatchStatus.OK;
+        }
+        return CourseMatcher.MatchStatus.LEVEL_MISMATCH;
+    }
+
+    // entspricht lehrer.replaceAll("[^A-Za-z]", "") ohne Regex
+    private static String lettersOnly(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // Vergleicht Niveau‑Codes im Kursstring mit denen des Plan‑Eintrags.
+    private static boolean courseMatchesLevel(String s, String levelType, String levelNum) {
+        String tokenBase = "-" + levelType; // -GK / -LK / -ZK
+        if (levelNum == null || levelNum.isEmpty()) {
+            return s.contains(tokenBase) || s.contains("-" + levelType.charAt(0) + "KB");
+        }
+
+        String pad2 = "0" + levelNum;
+        String token1 = tokenBase + levelNum; // -GK2
+        String token2 = "-" + levelType.charAt(0) + "KB" + pad2; // -GKB02 / -LKB02 / -ZKB02
+        String token3 = "-" + levelType.charAt(0) + "KB" + levelNum;
+        return s.contains(token1) || s.contains(token2) || s.contains(token3);
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Umgekehrter Index über die Kurse vieler Benutzer: „Fach‑Lehrerpräfix“
+ * (siehe <code>CourseIndex</code>) → eingeschriebene Benutzer samt dem
+ * passenden Kurs. Statt jede Kursliste einzeln gegen den Plan zu prüfen,
+ * wird der Plan einmal durchlaufen und jeder EVA‑Eintrag direkt zu den
+ * betroffenen Benutzern aufgelöst. Der Aufwand wächst so mit der Größe des
+ * Plans (und der Zahl der Treffer), nicht mit Benutzer × Plan.
+ *
+ * Das Ergebnis ist pro Benutzer identisch mit
+ * <code>EvaOverlapService.filterEva</code> für dessen Kursliste.
+ *
+ * @param <U> Schlüssel eines Benutzers, z. B. ein Profil
+ */
+public class EnrollmentIndex<U> {
+
+    // ein Kurs eines Benutzers (normalisiert)
+    private static class Enrollment<U> {
+        final U user;
+        final String course;
+
+        Enrollment(U user, String course) {
+            this.user = user;
+            this.course = course;
+        }
+    }
+
+    private final List<U> users = new ArrayList<>();
+    private final Map<String, List<Enrollment<U>>> byKey = new HashMap<>();
+
+    public EnrollmentIndex(Map<U, List<String>> coursesByUser) {
+        for (Map.Entry<U, List<String>> e : coursesByUser.entrySet()) {
+            U user = e.getKey();
+            users.add(user);
+            for (String c : e.getValue()) {
+                String s = CourseIndex.normalize(c);
+                for (String key : CourseIndex.keys(s)) {
+                    byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(new Enrollment<>(user, s));
+                }
+            }
+        }
+    }
+
+    /**
+     * Filtert den Plan für alle Benutzer auf einmal. Jeder Benutzer bekommt
+     * eine Map mit allen Tagen des Plans (ggf. mit leerer Liste).
+     *
+     * @param timetable gemeinsamer Stundenplan oder null; passt ein Eintrag
+     *                  zum Stundenplan, gilt er wie bei
+     *                  <code>filterEva</code> für jeden Benutzer
+     */
+    public Map<U, LinkedHashMap<String, List<EvaMatch>>> filterEva(Map<String, List<PlanEntry>> byDay, TimetableMatcher timetable) {
+        Metrics.Timer timer = Metrics.start("eva.filter.all");
+        try {
+            Map<U, LinkedHashMap<String, List<EvaMatch>>> out = new LinkedHashMap<>();
+            for (U user : users) {
+                LinkedHashMap<String, List<EvaMatch>> days = new LinkedHashMap<>();
+                for (Map.Entry<String, List<PlanEntry>> day : byDay.entrySet()) days.put(day.getKey(), CompactMatches.newList(day.getValue()));
+                out.put(user, days);
+            }
+
+            for (Map.Entry<String, List<PlanEntry>> day : byDay.entrySet()) {
+                List<PlanEntry> entries = day.getValue();
+                CompactDay compact = entries instanceof CompactDay ? (CompactDay) entries : null;
+                for (int row = 0; row < entries.size(); row++) {
+                    String info = compact != null ? compact.info(row) : entries.get(row).info;
+                    if (!"EVA".equalsIgnoreCase(info)) continue;
+                    PlanEntry e = entries.get(row);
+
+                    // Benutzer mit passendem Fach/Lehrer; Wert = Niveau passt bei mindestens einem Kurs
+                    Map<U, Boolean> hits = resolve(e);
+                    boolean ttMatch = timetable != null && timetable.matches(e.fach, e.lehrer, e.stunde);
+                    if (ttMatch) {
+                        for (U user : users) {
+                            Boolean levelOk = hits.get(user);
+                            CompactMatches.add(out.get(user).get(day.getKey()), row, e, levelOk != null && !levelOk);
+                        }
+                    } else {
+                        for (Map.Entry<U, Boolean> hit : hits.entrySet()) {
+                            CompactMatches.add(out.get(hit.getKey()).get(day.getKey()), row, e, !hit.getValue());
+                        }
+                    }
+                }
+            }
+            return out;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private Map<U, Boolean> resolve(PlanEntry e) {
+        Map<U, Boolean> hits = new LinkedHashMap<>();
+        CourseIndex.Query q = CourseIndex.query(e.fach, e.lehrer);
+        if (q == null) return hits;
+        List<Enrollment<U>> enrolled = byKey.get(q.key);
+        if (enrolled == null) return hits;
+        for (Enrollment<U> en : enrolled) {
+            if (Boolean.TRUE.equals(hits.get(en.user))) continue;
+            hits.put(en.user, q.levelMatches(en.course));
+        }
+        return hits;
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Objects;
+
 /**
  * Einfacher Wrapper, der einen <code>PlanEntry</code> (EVA‑Eintrag) mit
  * einer Markierung verbindet, ob das Kursniveau möglicherweise nicht mit
@@ -12,4 +14,17 @@ public class EvaMatch {
         this.entry = entry;
         this.levelMismatch = levelMismatch;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EvaMatch)) return false;
+        EvaMatch m = (EvaMatch) o;
+        return levelMismatch == m.levelMismatch && Objects.equals(entry, m.entry);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entry, levelMismatch);
+    }
 }
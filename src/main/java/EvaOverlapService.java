@@ -1,4 +1,3 @@
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -6,37 +5,61 @@ import java.util.Map;
 /**
  * Service‑Klasse, die die geparsten Vertretungseinträge filtert und nur
  * diejenigen behält, die als "EVA" markiert sind und die mit den vom
- * Schüler belegten Kursen überlappen. Sie verwendet den
- * <code>CourseMatcher</code> für die unscharfe Übereinstimmung.
+ * Schüler belegten Kursen überlappen. Für die unscharfe Übereinstimmung
+ * wird pro Kursliste einmal ein <code>CourseIndex</code> gebaut.
  */
 public class EvaOverlapService {
-    private final CourseMatcher matcher = new CourseMatcher();
-
     public LinkedHashMap<String, List<EvaMatch>> filterEva(Map<String, List<PlanEntry>> byDay, List<String> courses) {
-        return filterEva(byDay, courses, null);
+        return filterEva(byDay, courses, (TimetableMatcher) null);
     }
 
     public LinkedHashMap<String, List<EvaMatch>> filterEva(Map<String, List<PlanEntry>> byDay, List<String> courses, String timetableText) {
+        // stammt der Text aus dem PdfTextCache, wird der dort gebaute Matcher wiederverwendet
         TimetableMatcher timetable = (timetableText == null || timetableText.trim().isEmpty())
                 ? null
-                : new TimetableMatcher(timetableText);
-        LinkedHashMap<String, List<EvaMatch>> out = new LinkedHashMap<>();
-        for (Map.Entry<String, List<PlanEntry>> entry : byDay.entrySet()) {
-            List<EvaMatch> filtered = new ArrayList<>();
-            for (PlanEntry e : entry.getValue()) {
-                if (!"EVA".equalsIgnoreCase(e.info)) continue;
-                CourseMatcher.MatchStatus status = matcher.matchStatus(e.fach, e.lehrer, courses);
-                boolean ttMatch = timetable != null && timetable.matches(e.fach, e.lehrer, e.stunde);
-                if (ttMatch) {
-                    filtered.add(new EvaMatch(e, status == CourseMatcher.MatchStatus.LEVEL_MISMATCH));
-                } else if (status == CourseMatcher.MatchStatus.OK) {
-                    filtered.add(new EvaMatch(e, false));
-                } else if (status == CourseMatcher.MatchStatus.LEVEL_MISMATCH) {
-                    filtered.add(new EvaMatch(e, true));
-                }
+                : PdfTextCache.shared().matcherFor(timetableText);
+        return filterEva(byDay, courses, timetable);
+    }
+
+    // Variante mit bereits gebautem Matcher (null = kein Stundenplan), z. B.
+    // wenn derselbe Stundenplan für viele Profile verwendet wird
+    public LinkedHashMap<String, List<EvaMatch>> filterEva(Map<String, List<PlanEntry>> byDay, List<String> courses, TimetableMatcher timetable) {
+        Metrics.Timer timer = Metrics.start("eva.filter");
+        try {
+            CourseIndex index = new CourseIndex(courses);
+            LinkedHashMap<String, List<EvaMatch>> out = new LinkedHashMap<>();
+            for (Map.Entry<String, List<PlanEntry>> entry : byDay.entrySet()) {
+                out.put(entry.getKey(), filterDay(entry.getValue(), index, timetable));
+            }
+            return out;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // filtert die Einträge eines einzelnen Tages
+    public List<EvaMatch> filterDay(List<PlanEntry> entries, List<String> courses, TimetableMatcher timetable) {
+        return filterDay(entries, new CourseIndex(courses), timetable);
+    }
+
+    public List<EvaMatch> filterDay(List<PlanEntry> entries, CourseIndex courses, TimetableMatcher timetable) {
+        List<EvaMatch> filtered = CompactMatches.newList(entries);
+        // bei einem CompactDay wird nur für EVA-Zeilen ein PlanEntry gebaut
+        CompactDay compact = entries instanceof CompactDay ? (CompactDay) entries : null;
+        for (int row = 0; row < entries.size(); row++) {
+            String info = compact != null ? compact.info(row) : entries.get(row).info;
+            if (!"EVA".equalsIgnoreCase(info)) continue;
+            PlanEntry e = entries.get(row);
+            CourseMatcher.MatchStatus status = courses.matchStatus(e.fach, e.lehrer);
+            boolean ttMatch = timetable != null && timetable.matches(e.fach, e.lehrer, e.stunde);
+            if (ttMatch) {
+                CompactMatches.add(filtered, row, e, status == CourseMatcher.MatchStatus.LEVEL_MISMATCH);
+            } else if (status == CourseMatcher.MatchStatus.OK) {
+                CompactMatches.add(filtered, row, e, false);
+            } else if (status == CourseMatcher.MatchStatus.LEVEL_MISMATCH) {
+                CompactMatches.add(filtered, row, e, true);
             }
-            out.put(entry.getKey(), filtered);
         }
-        return out;
+        return filtered;
     }
 }
@@ -0,0 +1,189 @@
+import org.jsoup.nodes.Document;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Führt die drei Abrufe nach dem Login (Kursliste, Stundenplan‑PDF und
+ * Vertretungsplan) gleichzeitig aus. Keiner der Abrufe hängt von einem
+ * anderen ab, daher dauert eine Aktualisierung nur noch so lange wie die
+ * langsamste einzelne Anfrage.
+ *
+ * Jede Stufe hat ein eigenes Zeitlimit. Schlägt eine Stufe fehl oder
+ * dauert zu lange, liefern die übrigen trotzdem ihr Ergebnis; der Fehler
+ * landet in <code>Result.errors</code>. Bei Zeitüberschreitung und bei
+ * <code>cancel</code> wird der Thread der Stufe unterbrochen; laufende
+ * HTTP‑Anfragen und die PDF‑Extraktion brechen daraufhin ab und geben den
+ * Thread frei.
+ */
+public class FetchPipeline {
+    public static final String STAGE_COURSES = "Kurse";
+    public static final String STAGE_TIMETABLE = "Stundenplan";
+    public static final String STAGE_PLAN = "Vertretungsplan";
+
+    private static final long COURSES_TIMEOUT_SECONDS = 30;
+    private static final long TIMETABLE_TIMEOUT_SECONDS = 60;
+    private static final long PLAN_TIMEOUT_SECONDS = 30;
+
+    // gemeinsamer Pool für alle Abrufe; Daemon-Threads, damit das Programm normal endet
+    private static final AtomicInteger THREAD_NUM = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fetch-" + THREAD_NUM.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Schnittstelle für einen Abruf, der eine Exception werfen darf
+    public interface Stage<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Ergebnis aller drei Stufen. Fehlgeschlagene Stufen liefern eine leere
+     * Kursliste bzw. <code>null</code> für PDF und Plan. Landet der
+     * Planabruf auf der Loginseite, ist <code>planDocument</code> null und
+     * <code>planText()</code> leer.
+     */
+    public static class Result {
+        public final List<String> courses;
+        public final PdfTextCache.Entry timetable;
+        public final Document planDocument;
+        public final Map<String, Throwable> errors;
+        private String planText;
+
+        Result(List<String> courses, PdfTextCache.Entry timetable, Document planDocument, Map<String, Throwable> errors) {
+            this.courses = courses;
+            this.timetable = timetable;
+            this.planDocument = planDocument;
+            this.errors = errors;
+        }
+
+        // true, wenn ein Plan geladen wurde (weder Fehler noch Login-Seite)
+        public boolean hasPlan() {
+            return planDocument != null;
+        }
+
+        /**
+         * Textfassung des Plans; wird erst beim ersten Aufruf erzeugt, da
+         * <code>UntisParser.parsePlan(Document)</code> sie normalerweise
+         * nicht braucht. Leer für die Login‑Seite, null bei einem Fehler.
+         */
+        public synchronized String planText() {
+            if (planDocument == null) return errors.containsKey(STAGE_PLAN) ? null : "";
+            if (planText == null) planText = BonniwebClient.planText(planDocument);
+            return planText;
+        }
+
+        // Text des Stundenplans oder "" wenn keiner gelesen werden konnte oder er nicht verlangt war
+        public String timetableText() {
+            return timetable == null || timetable.text == null ? "" : timetable.text;
+        }
+
+        // Matcher für den Stundenplan oder null, wenn keiner gelesen werden konnte
+        public TimetableMatcher timetableMatcher() {
+            return timetable == null || timetable.isBlank() ? null : timetable.matcher();
+        }
+    }
+
+    public final CompletableFuture<List<String>> courses;
+    public final CompletableFuture<PdfTextCache.Entry> timetable;
+    public final CompletableFuture<Document> plan;
+
+    private FetchPipeline(BonniwebClient client, String planResourceUrl, String timetablePdfUrl, List<String> knownCourses,
+                          boolean keepTimetableText) {
+        courses = knownCourses != null
+                ? CompletableFuture.completedFuture(knownCourses)
+                : submit(client::fetchCourses, COURSES_TIMEOUT_SECONDS);
+        timetable = submit(() -> client.fetchPdf(timetablePdfUrl, keepTimetableText), TIMETABLE_TIMEOUT_SECONDS);
+        plan = submit(() -> client.fetchPlanDocumentFromResource(planResourceUrl), PLAN_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Startet alle Stufen für einen bereits angemeldeten Client. Die
+     * einzelnen Futures können sofort abgefragt werden, z. B. um Ergebnisse
+     * schon vor dem Ende der anderen Stufen anzuzeigen.
+     */
+    public static FetchPipeline start(BonniwebClient client, String planResourceUrl, String timetablePdfUrl) {
+        return new FetchPipeline(client, planResourceUrl, timetablePdfUrl, null, false);
+    }
+
+    // wie start, die Kursliste ist aber schon bekannt (z. B. aus dem Snapshot) und wird nicht abgerufen
+    public static FetchPipeline start(BonniwebClient client, String planResourceUrl, String timetablePdfUrl, List<String> knownCourses) {
+        return new FetchPipeline(client, planResourceUrl, timetablePdfUrl, knownCourses, false);
+    }
+
+    /**
+     * Wie oben; mit <code>keepTimetableText</code> enthält der
+     * Stundenplan‑Eintrag auch den Text des PDFs (für die Anzeige). Sonst
+     * wird nur der Matcher gebaut.
+     */
+    public static FetchPipeline start(BonniwebClient client, String planResourceUrl, String timetablePdfUrl,
+                                      List<String> knownCourses, boolean keepTimetableText) {
+        return new FetchPipeline(client, planResourceUrl, timetablePdfUrl, knownCourses, keepTimetableText);
+    }
+
+    /**
+     * Führt einen einzelnen Abruf im gemeinsamen Pool aus. Läuft das
+     * Zeitlimit ab oder wird das Future abgebrochen, wird auch der Task im
+     * Pool abgebrochen und sein Thread unterbrochen.
+     */
+    public static <T> CompletableFuture<T> submit(Stage<T> stage, long timeoutSeconds) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = EXECUTOR.submit(() -> {
+            try {
+                result.complete(stage.run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(timeoutSeconds, TimeUnit.SECONDS).whenComplete((value, err) -> {
+            if (err instanceof TimeoutException || err instanceof CancellationException) task.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Wartet auf alle Stufen und sammelt die Teilergebnisse ein. Wirft
+     * keine Exception; Fehler stehen pro Stufe in <code>errors</code>.
+     */
+    public Result await() {
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        List<String> c = join(courses, STAGE_COURSES, errors);
+        PdfTextCache.Entry t = join(timetable, STAGE_TIMETABLE, errors);
+        Document p = join(plan, STAGE_PLAN, errors);
+        return new Result(c == null ? Collections.emptyList() : c, t, p, errors);
+    }
+
+    // Bricht alle noch laufenden Stufen ab, einschließlich ihrer Anfragen bzw. der PDF-Extraktion
+    public void cancel() {
+        courses.cancel(true);
+        timetable.cancel(true);
+        plan.cancel(true);
+    }
+
+    private static <T> T join(CompletableFuture<T> f, String stage, Map<String, Throwable> errors) {
+        try {
+            return f.join();
+        } catch (Exception e) {
+            errors.put(stage, unwrap(e));
+            return null;
+        }
+    }
+
+    // CompletionException enthält die eigentliche Ursache
+    public static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+        return t;
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Einfacher Festplatten‑Cache für HTTP‑Antworten, der bedingte Anfragen
+ * (Conditional GET) ermöglicht. Pro URL werden der Inhalt sowie die
+ * Validatoren <code>ETag</code> und <code>Last-Modified</code> gespeichert.
+ * Beim nächsten Abruf schickt der Client diese als
+ * <code>If-None-Match</code>/<code>If-Modified-Since</code> mit; antwortet
+ * der Server mit 304, wird der gespeicherte Inhalt verwendet.
+ *
+ * Jede URL belegt zwei Dateien, deren Name der SHA‑256‑Hash der URL ist:
+ * <code>.body</code> mit den Rohdaten und <code>.meta</code> mit den
+ * Kopfzeilen im Properties‑Format.
+ *
+ * Für große Inhalte gibt es <code>getFile</code>/<code>putFile</code>, die
+ * nur mit dem Pfad der <code>.body</code>‑Datei arbeiten, statt die Bytes
+ * in den Speicher zu lesen.
+ */
+public class HttpCache {
+    private static final Path DEFAULT_DIR = AppFiles.resolve("http-cache");
+
+    /**
+     * Eine gespeicherte Antwort. Die Validatoren können <code>null</code>
+     * sein, wenn der Server keine geliefert hat. Einträge aus
+     * <code>getFile</code> haben statt <code>body</code> nur
+     * <code>file</code>.
+     */
+    public static class Entry {
+        public final byte[] body;
+        public final Path file;
+        public final String contentType;
+        public final String url;
+        public final String etag;
+        public final String lastModified;
+
+        public Entry(byte[] body, String contentType, String url, String etag, String lastModified) {
+            this(body, null, contentType, url, etag, lastModified);
+        }
+
+        public Entry(byte[] body, Path file, String contentType, String url, String etag, String lastModified) {
+            this.body = body;
+            this.file = file;
+            this.contentType = contentType;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        // nur Antworten mit Validator lassen sich später bedingt abfragen
+        public boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+
+        // Zeichensatz aus dem Content-Type, z. B. "text/html; charset=iso-8859-1"
+        public String charset() {
+            return HttpTransport.charsetOf(contentType);
+        }
+    }
+
+    private final Path dir;
+
+    public HttpCache() {
+        this(DEFAULT_DIR);
+    }
+
+    public HttpCache(Path dir) {
+        this.dir = dir;
+    }
+
+    // Liefert die gespeicherte Antwort für eine URL oder null
+    public Entry get(String url) {
+        return read(url, true);
+    }
+
+    /**
+     * Wie <code>get</code>, liest den Inhalt aber nicht ein: der Eintrag
+     * verweist nur auf die <code>.body</code>‑Datei. Diese kann durch ein
+     * späteres <code>put</code> ersetzt werden; wer sie länger braucht,
+     * sollte sie kopieren.
+     */
+    public Entry getFile(String url) {
+        return read(url, false);
+    }
+
+    private Entry read(String url, boolean withBody) {
+        String key = hash(url);
+        Path meta = dir.resolve(key + ".meta");
+        Path body = dir.resolve(key + ".body");
+        if (!Files.exists(meta) || !Files.exists(body)) return null;
+        try {
+            Properties p = new Properties();
+            try (InputStream in = Files.newInputStream(meta)) {
+                p.load(in);
+            }
+            // Hash-Kollisionen praktisch ausgeschlossen, aber billig zu prüfen
+            if (!url.equals(p.getProperty("request"))) return null;
+            return new Entry(withBody ? Files.readAllBytes(body) : null,
+                    withBody ? null : body,
+                    p.getProperty("contentType"),
+                    p.getProperty("url", url),
+                    p.getProperty("etag"),
+                    p.getProperty("lastModified"));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Speichert eine Antwort. Die Dateien werden zuerst unter einem
+     * temporären Namen geschrieben und dann umbenannt, damit parallel
+     * laufende Prozesse nie eine halb geschriebene Datei lesen.
+     */
+    public void put(String url, Entry entry) {
+        String key = hash(url);
+        try {
+            Files.createDirectories(dir);
+            Path bodyTmp = Files.createTempFile(dir, key, ".tmp");
+            AppFiles.restrictToOwner(bodyTmp);
+            Files.write(bodyTmp, entry.body);
+            Files.move(bodyTmp, dir.resolve(key + ".body"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeMeta(url, key, entry);
+        } catch (Exception ignored) {}
+    }
+
+    // wie put, der Inhalt wird aber aus der Datei body kopiert (die Datei selbst bleibt liegen)
+    public void putFile(String url, Path body, Entry entry) {
+        String key = hash(url);
+        try {
+            Files.createDirectories(dir);
+            Path bodyTmp = Files.createTempFile(dir, key, ".tmp");
+            AppFiles.restrictToOwner(bodyTmp);
+            Files.copy(body, bodyTmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(bodyTmp, dir.resolve(key + ".body"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeMeta(url, key, entry);
+        } catch (Exception ignored) {}
+    }
+
+    private void writeMeta(String url, String key, Entry entry) throws Exception {
+        Properties p = new Properties();
+        p.setProperty("request", url);
+        if (entry.url != null) p.setProperty("url", entry.url);
+        if (entry.contentType != null) p.setProperty("contentType", entry.contentType);
+        if (entry.etag != null) p.setProperty("etag", entry.etag);
+        if (entry.lastModified != null) p.setProperty("lastModified", entry.lastModified);
+
+        Path metaTmp = Files.createTempFile(dir, key, ".tmp");
+        AppFiles.restrictToOwner(metaTmp);
+        try (OutputStream out = Files.newOutputStream(metaTmp)) {
+            p.store(out, null);
+        }
+        Files.move(metaTmp, dir.resolve(key + ".meta"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // SHA-256 der URL als Hex-String; dient als Dateiname
+    private static String hash(String url) {
+        return Hashes.sha256(url);
+    }
+}
@@ -0,0 +1,376 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Transportschicht für alle HTTP‑Anfragen an bonniweb. Statt für jede
+ * Anfrage eine neue Verbindung aufzubauen (wie es <code>Jsoup.connect</code>
+ * tut), teilen sich alle Clients einen einzigen
+ * <code>java.net.http.HttpClient</code>. Dieser hält Verbindungen offen,
+ * spricht HTTP/2 wenn der Server es anbietet und erspart so den TCP‑ und
+ * TLS‑Handshake für fast jede Anfrage.
+ *
+ * Cookies werden bewusst nicht im gemeinsamen Client gespeichert, sondern
+ * pro Anfrage übergeben; so kann ein Transport für viele Profile mit
+ * jeweils eigener Sitzung genutzt werden. Weiterleitungen verfolgen wir
+ * selbst, damit Cookies aus Zwischenschritten nicht verloren gehen.
+ * Komprimierte Antworten (gzip/deflate) werden automatisch entpackt.
+ *
+ * Große Antworten (z. B. PDFs) können mit <code>saveTo</code> direkt in
+ * eine Datei geschrieben werden, statt als <code>byte[]</code> im Speicher
+ * zu landen.
+ */
+public class HttpTransport {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(15);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_REDIRECTS = 20;
+
+    private static final HttpTransport SHARED = new HttpTransport(HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build());
+
+    /**
+     * Eine Anfrage. Wird über die verkettbaren Methoden befüllt, ähnlich wie
+     * bei <code>Jsoup.connect</code>.
+     */
+    public static class Request {
+        final String url;
+        String method = "GET";
+        final Map<String, String> headers = new LinkedHashMap<>();
+        final Map<String, String> cookies = new LinkedHashMap<>();
+        Map<String, String> form;
+        boolean followRedirects = true;
+        Path saveTo;
+
+        public Request(String url) {
+            this.url = url;
+        }
+
+        public Request header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        public Request cookies(Map<String, String> values) {
+            cookies.putAll(values);
+            return this;
+        }
+
+        // Formulardaten; macht die Anfrage zu einem POST
+        public Request form(Map<String, String> data) {
+            this.form = data;
+            this.method = "POST";
+            return this;
+        }
+
+        public Request followRedirects(boolean follow) {
+            this.followRedirects = follow;
+            return this;
+        }
+
+        // schreibt den (entpackten) Inhalt in diese Datei statt in Response.body
+        public Request saveTo(Path file) {
+            this.saveTo = file;
+            return this;
+        }
+    }
+
+    /**
+     * Eine Antwort mit bereits entpacktem Inhalt. <code>url</code> ist die
+     * Adresse nach allen Weiterleitungen, <code>cookies</code> enthält alle
+     * Cookies, die unterwegs gesetzt wurden. Bei Anfragen mit
+     * <code>saveTo</code> ist <code>body</code> leer und der Inhalt steht in
+     * <code>bodyFile</code>.
+     */
+    public static class Response {
+        public final int status;
+        public final String url;
+        public final byte[] body;
+        public final Path bodyFile;
+        public final Map<String, String> cookies;
+        private final Map<String, List<String>> headers;
+
+        Response(int status, String url, byte[] body, Path bodyFile, Map<String, String> cookies, Map<String, List<String>> headers) {
+            this.status = status;
+            this.url = url;
+            this.body = body;
+            this.bodyFile = bodyFile;
+            this.cookies = cookies;
+            this.headers = headers;
+        }
+
+        // erster Wert einer Kopfzeile (Groß-/Kleinschreibung egal) oder null
+        public String header(String name) {
+            for (Map.Entry<String, List<String>> h : headers.entrySet()) {
+                if (h.getKey().equalsIgnoreCase(name) && !h.getValue().isEmpty()) return h.getValue().get(0);
+            }
+            return null;
+        }
+
+        public String contentType() {
+            return header("Content-Type");
+        }
+
+        public String charset() {
+            return charsetOf(contentType());
+        }
+    }
+
+    // Zeichensatz aus einem Content-Type wie "text/html; charset=iso-8859-1" oder null
+    public static String charsetOf(String contentType) {
+        if (contentType == null) return null;
+        int idx = contentType.toLowerCase().indexOf("charset=");
+        if (idx < 0) return null;
+        String cs = contentType.substring(idx + 8).trim();
+        int end = cs.indexOf(';');
+        if (end >= 0) cs = cs.substring(0, end);
+        cs = cs.replace("\"", "").replace("'", "").trim();
+        return cs.isEmpty() ? null : cs;
+    }
+
+    private final HttpClient client;
+
+    public HttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    // gemeinsam genutzter Transport mit Verbindungspool
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schickt die Anfrage asynchron ab. Das Future wird mit der Antwort der
+     * letzten Weiterleitung abgeschlossen (oder der ersten, wenn
+     * Weiterleitungen abgeschaltet sind). <code>cancel</code> auf dem
+     * Future bricht auch die gerade laufende Anfrage des
+     * <code>HttpClient</code> ab.
+     */
+    public CompletableFuture<Response> sendAsync(Request request) {
+        AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<>();
+        CompletableFuture<Response> result = send(request.method, request.url, request, new LinkedHashMap<>(), 0, inFlight);
+        result.whenComplete((resp, err) -> {
+            if (!(err instanceof CancellationException)) return;
+            CompletableFuture<?> sent = inFlight.get();
+            if (sent != null) sent.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Blockierende Variante von sendAsync. Wird der aufrufende Thread
+     * unterbrochen (z. B. durch <code>FetchPipeline.cancel</code>), wird
+     * die Anfrage abgebrochen und <code>InterruptedException</code>
+     * geworfen.
+     */
+    public Response send(Request request) throws Exception {
+        CompletableFuture<Response> f = sendAsync(request);
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    // inFlight: die Anfrage des HttpClient für den aktuellen Schritt, damit cancel sie erreicht
+    private CompletableFuture<Response> send(String method, String url, Request request,
+                                             Map<String, String> collected, int hops,
+                                             AtomicReference<CompletableFuture<?>> inFlight) {
+        Map<String, String> cookies = new LinkedHashMap<>(request.cookies);
+        cookies.putAll(collected);
+
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept-Encoding", "gzip, deflate");
+        for (Map.Entry<String, String> h : request.headers.entrySet()) b.header(h.getKey(), h.getValue());
+        if (!cookies.isEmpty()) b.header("Cookie", cookieHeader(cookies));
+        if ("POST".equals(method) && request.form != null) {
+            b.header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            b.POST(HttpRequest.BodyPublishers.ofString(formBody(request.form)));
+        } else {
+            b.GET();
+        }
+
+        // jede Weiterleitung zählt als eigene Anfrage; Bytes wie übertragen (ggf. komprimiert)
+        Metrics.Timer timer = Metrics.start("http.request");
+        CompletableFuture<? extends HttpResponse<?>> sent;
+        if (request.saveTo == null) {
+            CompletableFuture<HttpResponse<byte[]>> raw = client.sendAsync(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+            track(inFlight, raw);
+            sent = raw.whenComplete((resp, err) -> {
+                timer.stop(resp == null ? 0 : resp.body().length);
+                if (err != null) Metrics.count("http.error");
+            });
+        } else {
+            // jeder Schritt überschreibt dieselbe Datei; am Ende steht dort der Inhalt der letzten Antwort
+            CompletableFuture<HttpResponse<Path>> raw = client.sendAsync(b.build(), HttpResponse.BodyHandlers.ofFile(request.saveTo,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+            track(inFlight, raw);
+            sent = raw.whenComplete((resp, err) -> {
+                timer.stop(resp == null ? 0 : sizeOf(resp.body()));
+                if (err != null) Metrics.count("http.error");
+            });
+        }
+        return sent.thenCompose(resp -> {
+            Map<String, String> all = new LinkedHashMap<>(collected);
+            all.putAll(parseSetCookies(resp.headers().allValues("Set-Cookie")));
+
+            String location = resp.headers().firstValue("Location").orElse(null);
+            int status = resp.statusCode();
+            if (request.followRedirects && location != null && status >= 300 && status < 400 && hops < MAX_REDIRECTS) {
+                String next = URI.create(url).resolve(location.trim()).toString();
+                // 307/308 wiederholen die Methode, alle anderen werden zu GET
+                String nextMethod = (status == 307 || status == 308) ? method : "GET";
+                return send(nextMethod, next, request, all, hops + 1, inFlight);
+            }
+
+            try {
+                String encoding = resp.headers().firstValue("Content-Encoding").orElse("");
+                Response out;
+                if (request.saveTo == null) {
+                    out = new Response(status, url, decode((byte[]) resp.body(), encoding), null,
+                            Collections.unmodifiableMap(all), resp.headers().map());
+                } else {
+                    decode(request.saveTo, encoding);
+                    out = new Response(status, url, new byte[0], request.saveTo,
+                            Collections.unmodifiableMap(all), resp.headers().map());
+                }
+                return CompletableFuture.completedFuture(out);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    // merkt sich die neue Anfrage; wurde die vorige schon abgebrochen, gilt das auch für die Weiterleitung
+    private static void track(AtomicReference<CompletableFuture<?>> inFlight, CompletableFuture<?> raw) {
+        CompletableFuture<?> previous = inFlight.getAndSet(raw);
+        if (previous != null && previous.isCancelled()) raw.cancel(true);
+    }
+
+    // entpackt gzip/deflate; andere Kodierungen werden unverändert durchgereicht
+    private static byte[] decode(byte[] body, String encoding) throws Exception {
+        String enc = encoding.trim().toLowerCase();
+        if (body.length == 0 || enc.isEmpty() || enc.equals("identity")) return body;
+        if (enc.equals("gzip") || enc.equals("x-gzip")) {
+            return readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+        }
+        if (enc.equals("deflate")) {
+            // eigentlich zlib-verpackt, manche Server schicken aber rohes deflate
+            try {
+                return readAll(new InflaterInputStream(new ByteArrayInputStream(body)));
+            } catch (Exception e) {
+                return readAll(new InflaterInputStream(new ByteArrayInputStream(body), new Inflater(true)));
+            }
+        }
+        return body;
+    }
+
+    // wie oben, aber für einen Inhalt in einer Datei; entpackt wird in eine Nachbardatei, die dann das Original ersetzt
+    private static void decode(Path file, String encoding) throws Exception {
+        String enc = encoding.trim().toLowerCase();
+        if (enc.isEmpty() || enc.equals("identity") || Files.size(file) == 0) return;
+        if (!enc.equals("gzip") && !enc.equals("x-gzip") && !enc.equals("deflate")) return;
+
+        Path plain = Files.createTempFile(file.toAbsolutePath().getParent(), "decoded", ".tmp");
+        try {
+            if (enc.equals("deflate")) {
+                try {
+                    copy(new InflaterInputStream(Files.newInputStream(file)), plain);
+                } catch (Exception e) {
+                    copy(new InflaterInputStream(Files.newInputStream(file), new Inflater(true)), plain);
+                }
+            } else {
+                copy(new GZIPInputStream(Files.newInputStream(file)), plain);
+            }
+            Files.move(plain, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(plain);
+        }
+    }
+
+    private static void copy(InputStream in, Path target) throws Exception {
+        try (InputStream is = in) {
+            Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            is.transferTo(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String cookieHeader(Map<String, String> cookies) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> c : cookies.entrySet()) {
+            if (sb.length() > 0) sb.append("; ");
+            sb.append(c.getKey()).append('=').append(c.getValue());
+        }
+        return sb.toString();
+    }
+
+    // "name=value; Path=/; HttpOnly" -> name=value; Attribute werden ignoriert
+    private static Map<String, String> parseSetCookies(List<String> values) {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (String v : values) {
+            int semi = v.indexOf(';');
+            String pair = semi >= 0 ? v.substring(0, semi) : v;
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            String name = pair.substring(0, eq).trim();
+            if (!name.isEmpty()) out.put(name, pair.substring(eq + 1).trim());
+        }
+        return out;
+    }
+
+    private static String formBody(Map<String, String> data) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> d : data.entrySet()) {
+            if (sb.length() > 0) sb.append('&');
+            sb.append(URLEncoder.encode(d.getKey(), StandardCharsets.UTF_8))
+              .append('=')
+              .append(URLEncoder.encode(d.getValue(), StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,169 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lasttest gegen den lokalen <code>MockBonniwebServer</code>. Viele
+ * simulierte Profile laufen gleichzeitig den kompletten Ablauf durch:
+ * Login, Kursliste/PDF/Plan über die <code>FetchPipeline</code>, Parsen
+ * und <code>filterEva</code>. Am Ende werden Durchsatz und die Perzentile
+ * der Gesamtdauer ausgegeben, dazu die Messwerte der einzelnen Stufen
+ * (siehe <code>Metrics</code>).
+ *
+ * Aufruf:
+ * <code>LoadDriver [profile] [durchläufe] [latenzMs] [fehlerrate] [--no-cache]</code>,
+ * z. B. <code>LoadDriver 50 10 20 0.01</code>: 50 Profile gleichzeitig,
+ * jedes 10 Mal, 20 ms Latenz pro Anfrage, 1 % Fehler.
+ *
+ * HTTP‑Cache und PDF‑Text‑Cache liegen in einem temporären Verzeichnis,
+ * das am Ende gelöscht wird; die Caches der Anwendung bleiben unberührt.
+ * Mit <code>--no-cache</code> beginnt jeder Durchlauf mit leeren Caches
+ * (keine bedingten Anfragen, PDFBox bei jedem Durchlauf), um den kalten
+ * Pfad zu messen.
+ */
+public class LoadDriver {
+
+    // Ergebnis eines Durchlaufs; error ist null bei Erfolg
+    private static class Run {
+        final long nanos;
+        final String error;
+
+        Run(long nanos, String error) {
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        boolean noCache = argList.remove("--no-cache");
+        args = argList.toArray(new String[0]);
+        int profiles = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        MockBonniwebServer.Options options = new MockBonniwebServer.Options();
+        options.latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        options.jitterMillis = options.latencyMillis / 2;
+        options.failureRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+        MockBonniwebServer server = new MockBonniwebServer(options);
+        server.start();
+        // eigene Caches, damit der Lasttest nicht die Caches der Anwendung füllt
+        Path cacheDir = Files.createTempDirectory("loaddriver-cache");
+        HttpCache cache = new HttpCache(cacheDir.resolve("http"));
+        PdfTextCache pdfTexts = new PdfTextCache(4_000_000, cacheDir.resolve("pdf-text"), 16);
+        AtomicInteger runNumber = new AtomicInteger();
+        System.out.printf(Locale.ROOT, "%d Profile x %d Durchläufe gegen %s (Latenz %d ms, Fehlerrate %.3f%s)%n",
+                profiles, rounds, server.baseUrl(), options.latencyMillis, options.failureRate, noCache ? ", ohne Cache" : "");
+
+        ExecutorService pool = Executors.newFixedThreadPool(profiles);
+        AtomicInteger done = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            List<Future<List<Run>>> futures = new ArrayList<>();
+            for (int i = 0; i < profiles; i++) {
+                String user = "schueler" + i;
+                futures.add(pool.submit(() -> {
+                    List<Run> runs = new ArrayList<>();
+                    for (int k = 0; k < rounds; k++) {
+                        if (noCache) {
+                            // leere Caches nur für diesen Durchlauf; der PDF-Text nur im Speicher
+                            Path runDir = cacheDir.resolve("run" + runNumber.incrementAndGet());
+                            runs.add(runOnce(server.baseUrl(), user, new HttpCache(runDir), new PdfTextCache(0, null, 0)));
+                        } else {
+                            runs.add(runOnce(server.baseUrl(), user, cache, pdfTexts));
+                        }
+                        done.incrementAndGet();
+                    }
+                    return runs;
+                }));
+            }
+            List<Run> runs = new ArrayList<>();
+            for (Future<List<Run>> f : futures) runs.addAll(f.get());
+            long totalNanos = System.nanoTime() - start;
+            report(runs, totalNanos, server);
+        } finally {
+            pool.shutdownNow();
+            server.stop();
+            deleteQuietly(cacheDir);
+        }
+    }
+
+    // ein kompletter Ablauf für ein Profil, wie ihn die Kommandozeile ausführt
+    private static Run runOnce(String baseUrl, String user, HttpCache cache, PdfTextCache pdfTexts) {
+        long start = System.nanoTime();
+        try {
+            BonniwebClient client = new BonniwebClient(baseUrl, cache, pdfTexts);
+            if (!client.login(user, "geheim")) return new Run(System.nanoTime() - start, "Login fehlgeschlagen");
+
+            FetchPipeline.Result fetched = FetchPipeline.start(client,
+                    baseUrl + MockBonniwebServer.RESOURCE_PATH, baseUrl + MockBonniwebServer.PDF_PATH).await();
+            Throwable planError = fetched.errors.get(FetchPipeline.STAGE_PLAN);
+            if (planError != null) return new Run(System.nanoTime() - start, "Plan: " + planError);
+            if (!fetched.hasPlan()) return new Run(System.nanoTime() - start, "Plan: Login-Seite");
+            if (!fetched.errors.isEmpty()) {
+                return new Run(System.nanoTime() - start, fetched.errors.keySet().iterator().next() + ": "
+                        + fetched.errors.values().iterator().next());
+            }
+
+            ParsedPlan plan = new UntisParser().parsePlan(fetched.planDocument);
+            TimetableMatcher timetable = fetched.timetableMatcher();
+            LinkedHashMap<String, List<EvaMatch>> filtered =
+                    new EvaOverlapService().filterEva(plan.entriesByDay, fetched.courses, timetable);
+            if (filtered.isEmpty()) return new Run(System.nanoTime() - start, "Plan ohne Tage");
+            return new Run(System.nanoTime() - start, null);
+        } catch (Exception e) {
+            return new Run(System.nanoTime() - start, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private static void report(List<Run> runs, long totalNanos, MockBonniwebServer server) {
+        List<Long> ok = new ArrayList<>();
+        LinkedHashMap<String, Integer> errors = new LinkedHashMap<>();
+        for (Run r : runs) {
+            if (r.error == null) ok.add(r.nanos);
+            else errors.merge(r.error, 1, Integer::sum);
+        }
+        Collections.sort(ok);
+
+        double seconds = totalNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%d Durchläufe in %.2f s: %.1f Durchläufe/s, %d erfolgreich, %d Fehler%n",
+                runs.size(), seconds, runs.size() / seconds, ok.size(), runs.size() - ok.size());
+        System.out.printf(Locale.ROOT, "Dauer pro Durchlauf: p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                percentile(ok, 0.50), percentile(ok, 0.95), percentile(ok, 0.99), percentile(ok, 1.0));
+        System.out.printf(Locale.ROOT, "Server: %d Anfragen, davon %d absichtlich mit 503 beantwortet%n",
+                server.requests(), server.injectedFailures());
+        for (java.util.Map.Entry<String, Integer> e : errors.entrySet()) {
+            System.out.println("  " + e.getValue() + "x " + e.getKey());
+        }
+        System.out.println();
+        System.out.print(Metrics.summary());
+    }
+
+    // Perzentil (nearest rank) einer sortierten Liste von Nanosekunden, in Millisekunden
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) return 0;
+        int rank = (int) Math.ceil(p * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1))) / 1e6;
+    }
+
+    // löscht das Verzeichnis samt Unterverzeichnissen
+    private static void deleteQuietly(Path dir) {
+        try (var files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> {
+                try {
+                    Files.deleteIfExists(f);
+                } catch (Exception ignored) {}
+            });
+        } catch (Exception ignored) {}
+    }
+}
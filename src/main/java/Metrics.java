@@ -0,0 +1,185 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Einfache Messstelle für die Dauer der einzelnen Stufen einer
+ * Aktualisierung (Login, Kursliste, Plan‑ und PDF‑Download,
+ * PDF‑Textextraktion, Parsen, EVA‑Filter) und jeder einzelnen HTTP‑Anfrage.
+ * Pro Stufe werden Anzahl, Dauer als Histogramm (daraus p50/p95/p99) und
+ * übertragene Bytes gezählt; dazu kommen einfache Zähler.
+ *
+ * Jede gemessene Stufe wird zusätzlich als JFR‑Ereignis
+ * <code>vertretungsplan.Stage</code> gemeldet, sodass sie in einer
+ * Aufnahme mit <code>-XX:StartFlightRecording</code> neben GC und Threads
+ * erscheint. Ohne laufende Aufnahme kostet das fast nichts.
+ *
+ * Verwendung:
+ * <pre>
+ * Metrics.Timer t = Metrics.start("pdf.extract");
+ * try { ... } finally { t.stop(); }
+ * </pre>
+ */
+public class Metrics {
+    private static final Map<String, Stat> STAGES = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    // JFR-Ereignis für eine gemessene Stufe
+    @Name("vertretungsplan.Stage")
+    @Label("Vertretungsplan-Stufe")
+    @Category("Vertretungsplan")
+    @Description("Eine Stufe der Aktualisierung oder eine HTTP-Anfrage")
+    static class StageEvent extends jdk.jfr.Event {
+        @Label("Stufe")
+        String stage;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    // eine laufende Messung; stop() darf auch in einem anderen Thread aufgerufen werden
+    public static class Timer {
+        private final String stage;
+        private final long startNanos = System.nanoTime();
+        private final StageEvent event = new StageEvent();
+
+        private Timer(String stage) {
+            this.stage = stage;
+            event.begin();
+        }
+
+        public void stop() {
+            stop(0);
+        }
+
+        // beendet die Messung und zählt die übertragenen Bytes dazu
+        public void stop(long bytes) {
+            long nanos = System.nanoTime() - startNanos;
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage;
+                event.bytes = bytes;
+                event.commit();
+            }
+            STAGES.computeIfAbsent(stage, k -> new Stat()).record(nanos, bytes);
+        }
+    }
+
+    /**
+     * Messwerte einer Stufe. Die Dauer (in Mikrosekunden) landet in
+     * Fächern, die pro Zweierpotenz achtmal unterteilt sind; Perzentile
+     * sind damit auf etwa 12 % genau, ohne einzelne Werte zu speichern.
+     */
+    private static class Stat {
+        private static final int LINEAR = 16;
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+
+        final LongAdder count = new LongAdder();
+        final LongAdder totalMicros = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final AtomicLongArray buckets = new AtomicLongArray(LINEAR + 64 * SUB);
+        volatile long maxMicros;
+
+        void record(long nanos, long byteCount) {
+            long micros = Math.max(0, nanos / 1000);
+            count.increment();
+            totalMicros.add(micros);
+            if (byteCount > 0) bytes.add(byteCount);
+            buckets.incrementAndGet(bucket(micros));
+            if (micros > maxMicros) {
+                synchronized (this) {
+                    if (micros > maxMicros) maxMicros = micros;
+                }
+            }
+        }
+
+        static int bucket(long v) {
+            if (v < LINEAR) return (int) v;
+            int top = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (top - SUB_BITS)) & (SUB - 1);
+            return LINEAR + (top - 4) * SUB + sub;
+        }
+
+        // größter Wert, der noch in das Fach fällt
+        static long upperBound(int bucket) {
+            if (bucket < LINEAR) return bucket;
+            int top = (bucket - LINEAR) / SUB + 4;
+            int sub = (bucket - LINEAR) % SUB;
+            long lower = (long) (SUB + sub) << (top - SUB_BITS);
+            return lower + (1L << (top - SUB_BITS)) - 1;
+        }
+
+        // Perzentil p (0..1) in Mikrosekunden
+        long percentile(double p) {
+            long n = 0;
+            for (int i = 0; i < buckets.length(); i++) n += buckets.get(i);
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), maxMicros);
+            }
+            return maxMicros;
+        }
+    }
+
+    // startet die Messung einer Stufe
+    public static Timer start(String stage) {
+        return new Timer(stage);
+    }
+
+    // erhöht einen einfachen Zähler um eins
+    public static void count(String name) {
+        COUNTERS.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    public static long counter(String name) {
+        LongAdder a = COUNTERS.get(name);
+        return a == null ? 0 : a.sum();
+    }
+
+    // Perzentil p (0..1) der Dauer einer Stufe in Millisekunden, 0 ohne Messung
+    public static double percentileMillis(String stage, double p) {
+        Stat s = STAGES.get(stage);
+        return s == null ? 0 : s.percentile(p) / 1000.0;
+    }
+
+    public static void reset() {
+        STAGES.clear();
+        COUNTERS.clear();
+    }
+
+    /**
+     * Tabelle aller Stufen (alphabetisch) mit Anzahl, Perzentilen,
+     * Maximum und Bytes, danach die Zähler. Leer, wenn nichts gemessen wurde.
+     */
+    public static String summary() {
+        if (STAGES.isEmpty() && COUNTERS.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-18s %7s %9s %9s %9s %9s %12s%n",
+                "Stufe", "Anzahl", "p50 ms", "p95 ms", "p99 ms", "max ms", "Bytes"));
+        for (Map.Entry<String, Stat> e : new TreeMap<>(STAGES).entrySet()) {
+            Stat s = e.getValue();
+            sb.append(String.format(Locale.ROOT, "%-18s %7d %9.1f %9.1f %9.1f %9.1f %12d%n",
+                    e.getKey(), s.count.sum(),
+                    s.percentile(0.50) / 1000.0, s.percentile(0.95) / 1000.0, s.percentile(0.99) / 1000.0,
+                    s.maxMicros / 1000.0, s.bytes.sum()));
+        }
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+            sb.append(String.format(Locale.ROOT, "%-18s %7d%n", e.getKey(), e.getValue().sum()));
+        }
+        return sb.toString();
+    }
+}
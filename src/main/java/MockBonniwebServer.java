@@ -0,0 +1,396 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lokaler Ersatz für bonniweb.de, mit dem sich <code>BonniwebClient</code>
+ * ohne Netz und ohne echte Zugangsdaten ausprobieren und belasten lässt.
+ * Der Server spielt den Ablauf von Moodle nach: Loginseite mit Formular,
+ * Weiterleitungen nach dem Login, Dashboard, Kursliste, die
+ * Ressourcenseite mit eingebettetem Untis‑Plan, den Plan selbst und das
+ * Stundenplan‑PDF (mit ETag, sodass auch 304‑Antworten vorkommen).
+ *
+ * Die Seiten werden mitgeliefert erzeugt. Liegt in
+ * <code>Options.recordedDir</code> eine aufgezeichnete Seite
+ * (<code>login.html</code>, <code>dashboard.html</code>,
+ * <code>courses.html</code>, <code>resource.html</code>,
+ * <code>plan.htm</code>, <code>timetable.pdf</code>), wird stattdessen
+ * diese ausgeliefert.
+ *
+ * Jeder Benutzername mit nicht leerem Passwort wird angenommen (außer
+ * <code>Options.password</code> ist gesetzt); jeder Benutzer bekommt eine
+ * eigene, aus dem Namen abgeleitete Kursliste. Latenz und zufällige
+ * Fehler (HTTP 503) lassen sich einstellen.
+ */
+public class MockBonniwebServer {
+    // Pfade wie auf bonniweb.de, damit dieselben URLs wie im Programm funktionieren
+    public static final String RESOURCE_PATH = "/mod/resource/view.php?id=1323";
+    public static final String PDF_PATH = "/pluginfile.php/2990/mod_resource/content/4/Stufe_Q2.pdf";
+    private static final String PLAN_PATH = "/pluginfile.php/1323/mod_resource/content/7/w00024.htm";
+    private static final String SESSION_COOKIE = "MoodleSession";
+
+    private static final String[] SUBJECTS = {"M", "D", "E", "PH", "CH", "BI", "GE", "EK", "SW", "KU", "MU", "IF", "SP", "F", "L"};
+    private static final String[] LEVELS = {"GK1", "GK2", "GK3", "LK1", "LK2"};
+    private static final String[] TEACHERS = {"MUE", "SCH", "WGM", "BEC", "HOF", "KRA", "LEH", "NEU", "OTT", "PAU", "RIC", "STE"};
+    private static final String[] ROOMS = {"A101", "A102", "B201", "B204", "C12", "---"};
+    private static final String[] INFOS = {"EVA", "EVA", "EVA", "Vertretung", "Raumänderung", "Entfall"};
+
+    // Einstellungen; alle Felder haben brauchbare Standardwerte
+    public static class Options {
+        // 0 = freier Port
+        public int port = 0;
+        // feste Verzögerung pro Anfrage und zufälliger Zuschlag bis zu jitterMillis
+        public long latencyMillis = 0;
+        public long jitterMillis = 0;
+        // Anteil der Anfragen (0..1), die mit HTTP 503 beantwortet werden
+        public double failureRate = 0;
+        // null = jedes nicht leere Passwort wird angenommen
+        public String password;
+        // Ordner mit aufgezeichneten Seiten oder null
+        public Path recordedDir;
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Sitzungs-ID -> angemeldeter Benutzer ("" = noch nicht angemeldet)
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private final byte[] planHtml;
+    private final byte[] timetablePdf;
+    private final String timetableEtag;
+
+    public MockBonniwebServer(Options options) throws Exception {
+        this.options = options;
+        this.planHtml = recorded("plan.htm", () -> planPage().getBytes(StandardCharsets.ISO_8859_1));
+        this.timetablePdf = recorded("timetable.pdf", MockBonniwebServer::timetablePdf);
+        this.timetableEtag = "\"" + Hashes.sha256(timetablePdf).substring(0, 16) + "\"";
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mock-bonniweb");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // z. B. "http://127.0.0.1:54321"
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    // Anzahl absichtlich mit 503 beantworteter Anfragen
+    public long injectedFailures() {
+        return failures.get();
+    }
+
+    private void handle(HttpExchange ex) {
+        try {
+            requests.incrementAndGet();
+            delay();
+            if (options.failureRate > 0 && ThreadLocalRandom.current().nextDouble() < options.failureRate) {
+                failures.incrementAndGet();
+                send(ex, 503, "text/plain", "Service Unavailable".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            route(ex);
+        } catch (Exception e) {
+            try {
+                send(ex, 500, "text/plain", String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+            } catch (Exception ignored) {}
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void route(HttpExchange ex) throws Exception {
+        String path = ex.getRequestURI().getPath();
+        String session = sessionOf(ex);
+        String user = session == null ? null : sessions.get(session);
+        boolean loggedIn = user != null && !user.isEmpty();
+
+        if (path.equals("/login/index.php") && "POST".equals(ex.getRequestMethod())) {
+            Map<String, String> form = form(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            String name = form.getOrDefault("username", "");
+            String pass = form.getOrDefault("password", "");
+            boolean ok = !name.isEmpty() && !pass.isEmpty() && (options.password == null || options.password.equals(pass));
+            if (!ok) {
+                redirect(ex, "/login/index.php");
+                return;
+            }
+            // wie Moodle: nach dem Login neue Sitzung und zwei Weiterleitungen
+            String fresh = UUID.randomUUID().toString();
+            sessions.put(fresh, name);
+            if (session != null) sessions.remove(session);
+            ex.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + fresh + "; path=/; HttpOnly");
+            redirect(ex, "/login/index.php?testsession=2");
+            return;
+        }
+        if (path.equals("/login/index.php")) {
+            if (loggedIn) {
+                redirect(ex, "/my/");
+                return;
+            }
+            ensureSession(ex, session);
+            html(ex, recorded("login.html", this::loginPage));
+            return;
+        }
+        if (path.equals("/index.php") || path.equals("/")) {
+            ensureSession(ex, session);
+            html(ex, "<html><body><h1>bonniweb</h1><a href=\"/login/index.php\">Login</a></body></html>".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        // alles Weitere nur mit Anmeldung
+        if (!loggedIn) {
+            redirect(ex, "/login/index.php");
+            return;
+        }
+        switch (path) {
+            case "/my/":
+                html(ex, recorded("dashboard.html", () -> dashboardPage(user)));
+                return;
+            case "/my/courses.php":
+                html(ex, recorded("courses.html", () -> coursesPage(user)));
+                return;
+            case "/mod/resource/view.php":
+                html(ex, recorded("resource.html", this::resourcePage));
+                return;
+            case PLAN_PATH:
+                send(ex, 200, "text/html; charset=iso-8859-1", planHtml);
+                return;
+            case PDF_PATH:
+                ex.getResponseHeaders().add("ETag", timetableEtag);
+                if (timetableEtag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                    send(ex, 304, null, new byte[0]);
+                } else {
+                    send(ex, 200, "application/pdf", timetablePdf);
+                }
+                return;
+            default:
+                send(ex, 404, "text/plain", "Not Found".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void delay() throws InterruptedException {
+        long ms = options.latencyMillis;
+        if (options.jitterMillis > 0) ms += ThreadLocalRandom.current().nextLong(options.jitterMillis + 1);
+        if (ms > 0) Thread.sleep(ms);
+    }
+
+    private String sessionOf(HttpExchange ex) {
+        List<String> headers = ex.getRequestHeaders().get("Cookie");
+        if (headers == null) return null;
+        for (String header : headers) {
+            for (String part : header.split(";")) {
+                String p = part.trim();
+                if (p.startsWith(SESSION_COOKIE + "=")) return p.substring(SESSION_COOKIE.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    // vergibt wie Moodle schon vor dem Login eine Sitzung
+    private void ensureSession(HttpExchange ex, String session) {
+        if (session != null && sessions.containsKey(session)) return;
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, "");
+        ex.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE + "=" + id + "; path=/; HttpOnly");
+    }
+
+    private static Map<String, String> form(String body) {
+        Map<String, String> out = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            out.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private void redirect(HttpExchange ex, String location) throws Exception {
+        ex.getResponseHeaders().add("Location", baseUrl() + location);
+        send(ex, 303, null, new byte[0]);
+    }
+
+    private static void html(HttpExchange ex, byte[] body) throws Exception {
+        send(ex, 200, "text/html; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, byte[] body) throws Exception {
+        if (contentType != null) ex.getResponseHeaders().add("Content-Type", contentType);
+        boolean noBody = status == 304 || body.length == 0;
+        ex.sendResponseHeaders(status, noBody ? -1 : body.length);
+        if (!noBody) {
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    // Inhalt einer aufgezeichneten Datei, sonst die erzeugte Seite
+    private interface Page {
+        byte[] build() throws Exception;
+    }
+
+    private byte[] recorded(String name, Page fallback) throws Exception {
+        if (options.recordedDir != null) {
+            Path file = options.recordedDir.resolve(name);
+            if (Files.exists(file)) return Files.readAllBytes(file);
+        }
+        return fallback.build();
+    }
+
+    private byte[] loginPage() {
+        String action = baseUrl() + "/login/index.php";
+        return ("<html><body><form id=\"login\" method=\"post\" action=\"" + action + "\">"
+                + "<input type=\"hidden\" name=\"logintoken\" value=\"" + UUID.randomUUID() + "\">"
+                + "<input type=\"hidden\" name=\"anchor\" value=\"\">"
+                + "<input type=\"text\" name=\"username\">"
+                + "<input type=\"password\" name=\"password\">"
+                + "<button type=\"submit\">Login</button></form></body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] dashboardPage(String user) {
+        return ("<html><body><h1>Dashboard</h1><p>Angemeldet als " + user + "</p>"
+                + "<a href=\"/my/courses.php\">Meine Kurse</a></body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Kursliste im Moodle-Format "Q2-E-WGM-GK2", fest aus dem Benutzernamen abgeleitet
+    private static byte[] coursesPage(String user) {
+        Random r = new Random(user.hashCode());
+        StringBuilder sb = new StringBuilder("<html><body><div class=\"courses\">");
+        for (int i = 0; i < 12; i++) {
+            String course = "Q2-" + pick(r, SUBJECTS) + "-" + pick(r, TEACHERS) + "-" + pick(r, LEVELS);
+            sb.append("<div class=\"coursebox\"><div class=\"coursename\"><a href=\"/course/view.php?id=")
+              .append(1000 + i).append("\">").append(course).append("</a></div></div>");
+        }
+        return sb.append("</div></body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] resourcePage() {
+        return ("<html><body><div class=\"resourcecontent\"><iframe src=\"" + baseUrl() + PLAN_PATH
+                + "\"></iframe></div></body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Untis-Plan für heute und morgen, wie ihn bonniweb als HTML ausliefert
+    private static String planPage() {
+        Random r = new Random(24);
+        StringBuilder sb = new StringBuilder("<html><head><title>Untis Vertretungsplan</title></head><body>");
+        LocalDate day = LocalDate.now();
+        for (int d = 0; d < 2; d++, day = day.plusDays(1)) {
+            String heading = day.getDayOfMonth() + "." + day.getMonthValue() + ". "
+                    + day.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.GERMAN);
+            sb.append("<center><div class=\"mon_title\">").append(heading).append("</div>\n");
+            sb.append("<table class=\"mon_list\"><tr class=\"list\"><th>Klasse(n)</th><th>Stunde</th>"
+                    + "<th>(Fach)</th><th>Raum</th><th>Vertreter</th><th>Art</th></tr>\n");
+            for (int i = 0; i < 40; i++) {
+                sb.append("<tr class=\"list\"><td>Q2</td><td>").append(1 + r.nextInt(10)).append("</td><td>")
+                  .append(pick(r, SUBJECTS)).append('-').append(pick(r, LEVELS)).append("</td><td>")
+                  .append(pick(r, ROOMS)).append("</td><td>").append(pick(r, TEACHERS)).append("</td><td>")
+                  .append(pick(r, INFOS)).append("</td></tr>\n");
+            }
+            sb.append("</table></center>\n");
+        }
+        return sb.append("</body></html>").toString();
+    }
+
+    // Stundenplan der Stufe als PDF mit einer Zeile pro Kurs und Stunde
+    private static byte[] timetablePdf() throws Exception {
+        Random r = new Random(7);
+        List<String> lines = new ArrayList<>();
+        lines.add("Stundenplan Stufe Q2");
+        for (int hour = 1; hour <= 10; hour++) {
+            for (int k = 0; k < 5; k++) {
+                String prefix = k == 0 ? hour + ". " : "";
+                lines.add(prefix + pick(r, SUBJECTS) + "-" + pick(r, LEVELS) + " " + pick(r, TEACHERS) + " " + pick(r, ROOMS));
+            }
+        }
+
+        try (PDDocument doc = new PDDocument()) {
+            int perPage = 45;
+            for (int start = 0; start < lines.size(); start += perPage) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.COURIER, 10);
+                    cs.setLeading(14);
+                    cs.newLineAtOffset(50, 750);
+                    for (String line : lines.subList(start, Math.min(lines.size(), start + perPage))) {
+                        cs.showText(line);
+                        cs.newLine();
+                    }
+                    cs.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static String pick(Random r, String[] values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    /**
+     * Startet den Server allein, z. B. um die GUI oder die Kommandozeile
+     * von Hand dagegen laufen zu lassen. Aufruf:
+     * <code>MockBonniwebServer [port] [latenzMs] [fehlerrate]</code>.
+     */
+    public static void main(String[] args) throws Exception {
+        Options o = new Options();
+        o.port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        o.latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        o.failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        MockBonniwebServer server = new MockBonniwebServer(o);
+        server.start();
+        System.out.println("Mock-bonniweb läuft auf " + server.baseUrl() + " (Strg+C zum Beenden)");
+        // die Server-Threads sind Daemon-Threads; main muss daher warten
+        Thread.currentThread().join();
+    }
+}
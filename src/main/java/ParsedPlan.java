@@ -0,0 +1,55 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ergebnis eines einzigen Durchlaufs von <code>UntisParser.parsePlan</code>:
+ * Reihenfolge der Tage, Einträge pro Tag, ob die Vertretungen eines Tages
+ * schon freigegeben sind, sowie welche Tage als „heute“ und „morgen“
+ * angezeigt werden. Früher musste dafür der Text dreimal zerlegt werden
+ * (<code>parse</code>, <code>splitByDay</code>, <code>firstAvailableDay</code>).
+ */
+public class ParsedPlan {
+    public final List<String> dayOrder;
+    public final LinkedHashMap<String, List<PlanEntry>> entriesByDay;
+    public final String today;
+    public final String tomorrow;
+    private final Map<String, Boolean> released;
+
+    ParsedPlan(List<String> dayOrder, LinkedHashMap<String, List<PlanEntry>> entriesByDay,
+               Map<String, Boolean> released) {
+        this.dayOrder = Collections.unmodifiableList(dayOrder);
+        this.entriesByDay = entriesByDay;
+        this.released = released;
+
+        // erster freigegebener Tag, sonst einfach der erste Tag
+        String first = null;
+        for (String day : dayOrder) {
+            if (isReleased(day)) {
+                first = day;
+                break;
+            }
+        }
+        if (first == null && !dayOrder.isEmpty()) first = dayOrder.get(0);
+        this.today = first;
+
+        String next = null;
+        if (first != null) {
+            int idx = dayOrder.indexOf(first);
+            if (idx >= 0 && idx + 1 < dayOrder.size()) next = dayOrder.get(idx + 1);
+        }
+        this.tomorrow = next;
+    }
+
+    // false, wenn der Block des Tages "Vertretungen sind nicht freigegeben" enthält
+    public boolean isReleased(String day) {
+        return released.getOrDefault(day, false);
+    }
+
+    // Einträge eines Tages (leer, wenn unbekannt oder null)
+    public List<PlanEntry> entries(String day) {
+        if (day == null) return Collections.emptyList();
+        return entriesByDay.getOrDefault(day, Collections.emptyList());
+    }
+}
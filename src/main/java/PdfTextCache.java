@@ -0,0 +1,419 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache für den aus einem PDF extrahierten Text. Schlüssel ist der
+ * SHA‑256‑Hash der PDF‑Bytes; ein identisches PDF muss daher nie wieder
+ * durch PDFBox laufen. Zu jedem Eintrag wird bei Bedarf auch der fertige
+ * <code>TimetableMatcher</code> gehalten, damit dessen Aufbau ebenfalls
+ * nur einmal anfällt.
+ *
+ * Den Text selbst hält ein Eintrag nur, wenn er beim Abruf verlangt wurde
+ * (die GUI zeigt ihn an). Sonst wird das PDF direkt in den
+ * <code>TimetableMatcher</code> gelesen und der Text nur auf die
+ * Festplatte geschrieben.
+ *
+ * Im Speicher liegen die Einträge in einer LRU‑Liste, die auf eine
+ * Gesamtzahl von Zeichen begrenzt ist. Zusätzlich wird der Text auf der
+ * Festplatte abgelegt (ebenfalls begrenzt, älteste Dateien fliegen
+ * zuerst), damit auch ein neu gestarteter Prozess vom Cache profitiert.
+ *
+ * Fragen mehrere Threads gleichzeitig nach demselben, noch unbekannten
+ * PDF (Batch, Dauerbetrieb, „Alle aktualisieren“), läuft PDFBox nur in
+ * einem davon; die anderen warten auf dessen Eintrag.
+ */
+public class PdfTextCache {
+    private static final long DEFAULT_MAX_CHARS = 4_000_000;
+    private static final int DEFAULT_MAX_FILES = 16;
+    private static final PdfTextCache SHARED =
+            new PdfTextCache(DEFAULT_MAX_CHARS, AppFiles.resolve("pdf-text"), DEFAULT_MAX_FILES);
+
+    // Extrahiert den Text aus den PDF-Bytes; wird nur bei einem Fehltreffer aufgerufen
+    public interface Extractor {
+        String extract(byte[] pdf) throws Exception;
+    }
+
+    // Liest das PDF in den Builder (siehe PdfTextExtractor.index); wird nur bei einem Fehltreffer aufgerufen
+    public interface Indexer {
+        void index(Path pdf, TimetableMatcher.Builder into) throws Exception;
+    }
+
+    /**
+     * Ein Cache‑Eintrag: Hash der PDF‑Bytes, normalisierter Text und der
+     * <code>TimetableMatcher</code>. <code>text</code> ist null, wenn der
+     * Text beim Abruf nicht verlangt wurde. Der Matcher ist nach einem
+     * Fehltreffer schon fertig; bei einem Treffer auf der Festplatte wird
+     * er erst beim ersten Zugriff aus der Textdatei gebaut, damit ein
+     * Matcher aus dem Snapshot (<code>useMatcher</code>) ihn ersetzen kann.
+     */
+    public static class Entry {
+        public final String hash;
+        public final String text;
+        // Länge des Textes, auch wenn er nicht gehalten wird; Maß für die Größe des Eintrags
+        private final long chars;
+        private final boolean blank;
+        // Textdatei im Cache, aus der ein noch fehlender Matcher gebaut wird (nur ohne text)
+        private final Path source;
+        private TimetableMatcher matcher;
+
+        Entry(String hash, String text) {
+            this(hash, text, text.length(), text.trim().isEmpty(), null, null);
+        }
+
+        Entry(String hash, String text, long chars, boolean blank, TimetableMatcher matcher, Path source) {
+            this.hash = hash;
+            this.text = text;
+            this.chars = chars;
+            this.blank = blank;
+            this.matcher = matcher;
+            this.source = source;
+        }
+
+        // true, wenn das PDF keinen lesbaren Text enthält
+        public boolean isBlank() {
+            return blank;
+        }
+
+        /**
+         * Liefert den Matcher und baut ihn beim ersten Aufruf, aus dem Text
+         * oder aus der Textdatei. Ist die Datei inzwischen verschwunden,
+         * gibt es eine <code>UncheckedIOException</code>.
+         */
+        public synchronized TimetableMatcher matcher() {
+            if (matcher == null) matcher = text != null ? new TimetableMatcher(text) : indexFile(source);
+            return matcher;
+        }
+
+        // der Matcher, falls er schon gebaut ist, sonst null
+        synchronized TimetableMatcher builtMatcher() {
+            return matcher;
+        }
+
+        // übernimmt einen anderswo gebauten Matcher (z. B. aus dem Snapshot), falls noch keiner existiert
+        public synchronized TimetableMatcher useMatcher(TimetableMatcher m) {
+            if (matcher == null) matcher = m;
+            return matcher;
+        }
+    }
+
+    private final long maxChars;
+    private final Path dir;
+    private final int maxFiles;
+    // accessOrder = true: jeder Zugriff schiebt den Eintrag ans Ende
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalChars;
+    // laufende Ladevorgänge pro Hash; wer keinen eigenen startet, wartet auf diesen
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxChars  Obergrenze für die Summe aller Textlängen im Speicher
+     * @param dir       Verzeichnis für die Festplattenkopie, null für keine
+     * @param maxFiles  maximale Anzahl Dateien im Verzeichnis
+     */
+    public PdfTextCache(long maxChars, Path dir, int maxFiles) {
+        this.maxChars = maxChars;
+        this.dir = dir;
+        this.maxFiles = maxFiles;
+    }
+
+    // gemeinsam genutzte Instanz für Client und Auswertung
+    public static PdfTextCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Liefert den Eintrag für die PDF‑Bytes. Nur wenn der Hash weder im
+     * Speicher noch auf der Festplatte bekannt ist, wird der Extractor
+     * (also PDFBox) aufgerufen. Der Eintrag enthält immer den Text.
+     */
+    public Entry get(byte[] pdf, Extractor extractor) throws Exception {
+        String hash = Hashes.sha256(pdf);
+        while (true) {
+            synchronized (this) {
+                Entry e = entries.get(hash);
+                if (e != null && e.text != null) {
+                    hits.incrementAndGet();
+                    return e;
+                }
+            }
+
+            Entry e = loadOnce(hash, () -> {
+                String text = readFromDisk(hash);
+                if (text != null) {
+                    hits.incrementAndGet();
+                } else {
+                    misses.incrementAndGet();
+                    text = extractor.extract(pdf);
+                    writeToDisk(hash, text);
+                }
+                return put(new Entry(hash, text));
+            });
+            // null: der andere Ladevorgang wurde abgebrochen; ohne Text: er hat ihn nicht gehalten
+            if (e != null && e.text != null) return e;
+        }
+    }
+
+    /**
+     * Wie oben für ein PDF auf der Festplatte. Der Hash wird blockweise
+     * gebildet, das PDF muss also nie vollständig im Speicher liegen. Bei
+     * einem Fehltreffer liest der Indexer das PDF direkt in den
+     * <code>TimetableMatcher</code>; der Text landet nur dann im Eintrag,
+     * wenn <code>keepText</code> gesetzt ist, sonst nur auf der Festplatte.
+     */
+    public Entry get(Path pdf, Indexer indexer, boolean keepText) throws Exception {
+        String hash = Hashes.sha256(pdf);
+        while (true) {
+            Entry known;
+            synchronized (this) {
+                known = entries.get(hash);
+            }
+            if (known != null && (known.text != null || !keepText)) {
+                hits.incrementAndGet();
+                return known;
+            }
+            // ein schon gebauter Matcher des Eintrags ohne Text wird weiterverwendet
+            TimetableMatcher matcher = known == null ? null : known.builtMatcher();
+
+            Entry e = loadOnce(hash, () -> {
+                Entry d = keepText ? textFromDisk(hash, matcher) : entryFromDisk(hash);
+                if (d != null) {
+                    hits.incrementAndGet();
+                } else {
+                    misses.incrementAndGet();
+                    d = index(hash, pdf, indexer, keepText);
+                }
+                return put(d);
+            });
+            if (e != null && (e.text != null || !keepText)) return e;
+        }
+    }
+
+    private interface Load {
+        Entry run() throws Exception;
+    }
+
+    /**
+     * Führt <code>load</code> aus, sofern für den Hash nicht schon ein
+     * anderer Thread lädt; sonst wird auf dessen Eintrag gewartet. Liefert
+     * null, wenn der andere Ladevorgang abgebrochen wurde (Thread
+     * unterbrochen), damit der Aufrufer es selbst versucht.
+     */
+    private Entry loadOnce(String hash, Load load) throws Exception {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(hash, mine);
+        if (running != null) {
+            try {
+                Entry e = running.get();
+                hits.incrementAndGet();
+                return e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof InterruptedIOException || cause instanceof ClosedByInterruptException) return null;
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            }
+        }
+        try {
+            Entry e = load.run();
+            mine.complete(e);
+            return e;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(hash, mine);
+        }
+    }
+
+    private Entry textFromDisk(String hash, TimetableMatcher matcher) {
+        String text = readFromDisk(hash);
+        return text == null ? null : new Entry(hash, text, text.length(), text.trim().isEmpty(), matcher, null);
+    }
+
+    /**
+     * Eintrag ohne Text für eine vorhandene Textdatei. Gelesen wird nur bis
+     * zum ersten sichtbaren Zeichen (für <code>isBlank</code>); den Matcher
+     * baut erst <code>Entry.matcher()</code>, falls keiner aus dem Snapshot
+     * kommt. Als Größe dient die Dateigröße.
+     */
+    private Entry entryFromDisk(String hash) {
+        if (dir == null) return null;
+        Path file = dir.resolve(hash + ".txt");
+        if (!Files.exists(file)) return null;
+        try {
+            boolean blank = isBlank(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(hash, null, Files.size(file), blank, null, file);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // true, wenn die Datei nur Leerraum enthält (wie TimetableMatcher.Builder.isBlank)
+    private static boolean isBlank(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int c;
+            while ((c = in.read()) >= 0) {
+                if (c > ' ') return false;
+            }
+            return true;
+        }
+    }
+
+    // baut den Matcher zeilenweise aus der Textdatei, ohne den Text als Ganzes zu lesen
+    private static TimetableMatcher indexFile(Path file) {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            TimetableMatcher.Builder b = new TimetableMatcher.Builder();
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) b.append(buf, 0, n);
+            return b.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Fehltreffer: PDF in den Builder lesen; der Text geht in den Speicher oder direkt in die Cache-Datei
+    private Entry index(String hash, Path pdf, Indexer indexer, boolean keepText) throws Exception {
+        TimetableMatcher.Builder b = new TimetableMatcher.Builder();
+        if (keepText || dir == null) {
+            StringBuilder sb = keepText ? new StringBuilder() : null;
+            indexer.index(pdf, b.textTo(sb));
+            // build() gibt auch eine letzte Zeile ohne Zeilenende noch an sb weiter
+            TimetableMatcher matcher = b.build();
+            String text = sb == null ? null : sb.toString();
+            if (text != null) writeToDisk(hash, text);
+            return new Entry(hash, text, b.chars(), b.isBlank(), matcher, null);
+        }
+
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, hash, ".tmp");
+        TimetableMatcher matcher;
+        try {
+            AppFiles.restrictToOwner(tmp);
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                indexer.index(pdf, b.textTo(out));
+                matcher = b.build();
+            }
+            Files.move(tmp, dir.resolve(hash + ".txt"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            pruneDisk();
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new Entry(hash, null, b.chars(), b.isBlank(), matcher, null);
+    }
+
+    /**
+     * Liefert einen <code>TimetableMatcher</code> für den Text. Stammt der
+     * Text aus diesem Cache, wird der dort gehaltene Matcher verwendet,
+     * sonst ein neuer gebaut.
+     */
+    public TimetableMatcher matcherFor(String text) {
+        synchronized (this) {
+            for (Entry e : entries.values()) {
+                // equals prüft zuerst die Identität; bei Treffern aus dem Cache billig
+                if (text.equals(e.text)) return e.matcher();
+            }
+        }
+        return new TimetableMatcher(text);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private synchronized Entry put(Entry e) {
+        Entry existing = entries.get(e.hash);
+        // ein Eintrag mit Text wird nur durch einen ersetzt, der ebenfalls Text hat
+        if (existing != null && (existing.text != null || e.text == null)) return existing;
+        if (existing != null) {
+            entries.remove(e.hash);
+            totalChars -= existing.chars;
+        }
+        entries.put(e.hash, e);
+        totalChars += e.chars;
+
+        // älteste Einträge entfernen, bis die Grenze wieder eingehalten ist;
+        // der gerade eingefügte bleibt immer erhalten
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalChars > maxChars && entries.size() > 1) {
+            Entry eldest = it.next();
+            it.remove();
+            totalChars -= eldest.chars;
+        }
+        return e;
+    }
+
+    private String readFromDisk(String hash) {
+        if (dir == null) return null;
+        Path file = dir.resolve(hash + ".txt");
+        if (!Files.exists(file)) return null;
+        try {
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            // Zugriffszeit merken, damit die Datei beim Aufräumen als jung gilt
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return text;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // wie in index(): erst vollständig in eine eigene temporäre Datei, dann atomar an ihren Platz,
+    // damit readFromDisk nie einen halb geschriebenen Text als Ergebnis für den Hash liest
+    private void writeToDisk(String hash, String text) {
+        if (dir == null) return;
+        try {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, hash, ".tmp");
+            try {
+                AppFiles.restrictToOwner(tmp);
+                Files.writeString(tmp, text, StandardCharsets.UTF_8);
+                Files.move(tmp, dir.resolve(hash + ".txt"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            pruneDisk();
+        } catch (Exception ignored) {}
+    }
+
+    // löscht die am längsten nicht benutzten Dateien über der Obergrenze
+    private void pruneDisk() throws Exception {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.txt")) {
+            for (Path p : ds) files.add(p);
+        }
+        if (files.size() <= maxFiles) return;
+        Map<Path, Long> modified = new LinkedHashMap<>();
+        for (Path p : files) modified.put(p, Files.getLastModifiedTime(p).toMillis());
+        files.sort((a, b) -> Long.compare(modified.get(a), modified.get(b)));
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+}
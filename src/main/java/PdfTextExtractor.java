@@ -0,0 +1,181 @@
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Textextraktion aus einem PDF auf der Festplatte. PDFBox bekommt dabei
+ * nur einen begrenzten Teil des Heaps; was darüber hinausgeht, landet in
+ * einer Scratch‑Datei (<code>MemoryUsageSetting.setupMixed</code>).
+ *
+ * Bei mehrseitigen PDFs (z. B. dem Stundenplan einer Stufe) werden die
+ * Seiten in zusammenhängende Bereiche aufgeteilt und gleichzeitig
+ * extrahiert. Weil weder <code>PDDocument</code> noch
+ * <code>PDFTextStripper</code> threadsicher sind, öffnet jeder Bereich
+ * das Dokument selbst und hat einen eigenen Stripper. Die Teiltexte werden
+ * in Seitenreihenfolge zusammengesetzt; das Ergebnis ist dasselbe wie bei
+ * einem einzigen <code>getText</code> über alle Seiten.
+ *
+ * <code>index</code> schreibt den Text nicht in einen String, sondern
+ * reicht ihn zeichenweise an einen <code>TimetableMatcher.Builder</code>
+ * weiter, der ihn schon während des Lesens indexiert.
+ *
+ * Wird der Thread unterbrochen (z. B. durch <code>FetchPipeline.cancel</code>),
+ * bricht die Extraktion beim nächsten geschriebenen Text mit einer
+ * <code>InterruptedIOException</code> ab.
+ */
+public final class PdfTextExtractor {
+    // so viel Heap darf PDFBox pro geöffnetem Dokument belegen, der Rest geht in die Scratch-Datei
+    private static final long MAX_MAIN_MEMORY_BYTES = 8L * 1024 * 1024;
+    // erst ab so vielen Seiten lohnt es sich, das Dokument mehrfach zu öffnen
+    private static final int MIN_PAGES_FOR_PARALLEL = 4;
+    // mindestens so viele Seiten pro Bereich
+    private static final int MIN_PAGES_PER_RANGE = 2;
+
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final AtomicInteger THREAD_NUM = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "pdf-text-" + THREAD_NUM.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private PdfTextExtractor() {}
+
+    /**
+     * Liefert den Text des PDFs mit normalisierten Zeilenenden und ohne
+     * geschützte Leerzeichen.
+     */
+    public static String extract(Path pdf) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        TimetableMatcher.Builder b = new TimetableMatcher.Builder().textTo(sb);
+        index(pdf, b);
+        b.build();
+        return sb.toString();
+    }
+
+    // für PDFs, die schon im Speicher liegen: einmal auf die Festplatte, dann wie oben
+    public static String extract(byte[] pdf) throws Exception {
+        Path tmp = Files.createTempFile("pdf-text", ".pdf");
+        try {
+            AppFiles.restrictToOwner(tmp);
+            Files.write(tmp, pdf);
+            return extract(tmp);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Liest den Text des PDFs direkt in den Builder. Bei mehreren
+     * Seitenbereichen bekommt jeder Bereich einen eigenen Teil
+     * (<code>newPart</code>), der danach in Seitenreihenfolge übernommen
+     * wird. Jede Seite endet mit einem Zeilenende, die Teile schneiden also
+     * keine Zeile durch.
+     */
+    public static void index(Path pdf, TimetableMatcher.Builder into) throws Exception {
+        Metrics.Timer timer = Metrics.start("pdf.extract");
+        try {
+            indexPages(pdf.toFile(), into);
+        } finally {
+            timer.stop(Files.size(pdf));
+        }
+    }
+
+    private static void indexPages(File file, TimetableMatcher.Builder into) throws Exception {
+        int pages;
+        try (PDDocument doc = open(file)) {
+            pages = doc.getNumberOfPages();
+            if (pages < MIN_PAGES_FOR_PARALLEL || THREADS == 1) {
+                new PDFTextStripper().writeText(doc, new BuilderWriter(into));
+                return;
+            }
+        }
+
+        int ranges = Math.min(THREADS, pages / MIN_PAGES_PER_RANGE);
+        List<TimetableMatcher.Builder> parts = new ArrayList<>(ranges);
+        List<Future<?>> futures = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            // Seiten 1..pages möglichst gleichmäßig und lückenlos verteilen
+            int first = 1 + (int) ((long) pages * i / ranges);
+            int last = (int) ((long) pages * (i + 1) / ranges);
+            TimetableMatcher.Builder part = into.newPart();
+            parts.add(part);
+            futures.add(EXECUTOR.submit(() -> {
+                indexRange(file, first, last, part);
+                return null;
+            }));
+        }
+
+        try {
+            for (int i = 0; i < ranges; i++) {
+                futures.get(i).get();
+                into.addPart(parts.get(i));
+            }
+        } catch (Exception e) {
+            for (Future<?> f : futures) f.cancel(true);
+            throw e;
+        }
+    }
+
+    private static void indexRange(File file, int firstPage, int lastPage, TimetableMatcher.Builder part) throws Exception {
+        try (PDDocument doc = open(file)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(firstPage);
+            stripper.setEndPage(lastPage);
+            stripper.writeText(doc, new BuilderWriter(part));
+        }
+    }
+
+    private static PDDocument open(File file) throws Exception {
+        return PDDocument.load(file, MemoryUsageSetting.setupMixed(MAX_MAIN_MEMORY_BYTES));
+    }
+
+    /**
+     * Gibt alles, was <code>PDFTextStripper</code> schreibt, an den Builder
+     * weiter. Wörter, Zeilen und Seitenenden laufen bei PDFBox alle über
+     * diesen Writer, daher reicht es, hier statt an den einzelnen
+     * <code>write...</code>‑Methoden des Strippers anzusetzen. Aus
+     * demselben Grund wird hier auf eine Unterbrechung geprüft.
+     */
+    private static final class BuilderWriter extends Writer {
+        private final TimetableMatcher.Builder into;
+
+        BuilderWriter(TimetableMatcher.Builder into) {
+            this.into = into;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws InterruptedIOException {
+            checkInterrupted();
+            into.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws InterruptedIOException {
+            checkInterrupted();
+            for (int i = off; i < off + len; i++) into.append(str.charAt(i));
+        }
+
+        private static void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("PDF-Extraktion abgebrochen");
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
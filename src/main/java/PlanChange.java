@@ -0,0 +1,26 @@
+/**
+ * Eine einzelne Änderung zwischen zwei Abrufen des Vertretungsplans,
+ * entweder für einen <code>PlanEntry</code> oder für einen
+ * <code>EvaMatch</code>. Bei <code>ADDED</code> ist <code>before</code>
+ * null, bei <code>REMOVED</code> ist <code>after</code> null.
+ */
+public class PlanChange<T> {
+    public enum Kind { ADDED, REMOVED, CHANGED }
+
+    public final Kind kind;
+    public final String day;
+    public final T before;
+    public final T after;
+
+    public PlanChange(Kind kind, String day, T before, T after) {
+        this.kind = kind;
+        this.day = day;
+        this.before = before;
+        this.after = after;
+    }
+
+    // der aktuelle Stand, bei entfernten Einträgen der alte
+    public T value() {
+        return after != null ? after : before;
+    }
+}
@@ -0,0 +1,212 @@
+import org.jsoup.nodes.Document;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Merkt sich den zuletzt geparsten Stand des Vertretungsplans und liefert
+ * bei jedem neuen Abruf nur die Unterschiede. Jeder Tagesblock aus
+ * <code>UntisParser.splitByDay</code> wird gehasht; nur Blöcke mit
+ * geändertem Hash werden neu geparst und neu gefiltert. Der Aufwand für
+ * Benachrichtigungen hängt so von der Größe der Änderung ab, nicht von
+ * der Größe des Plans.
+ *
+ * Geänderte Tage werden wie in GUI und Kommandozeile
+ * (<code>UntisParser.parsePlan(Document)</code>) aus den Tabellenzeilen
+ * des Dokuments gelesen; nur ohne Dokument oder wenn dessen Tage nicht zu
+ * den Textblöcken passen, aus dem Textblock.
+ *
+ * Einträge gelten als „dieselbe Stunde“, wenn Klasse, Stunde und Fach
+ * übereinstimmen; unterscheiden sie sich sonst (Raum, Lehrer, Info), ist
+ * das ein <code>CHANGED</code>.
+ *
+ * Ein Tracker gehört zu genau einem Profil (Kursliste); er ist nicht
+ * threadsicher.
+ */
+public class PlanChangeTracker {
+
+    // Ergebnis eines Abrufs
+    public static class Update {
+        public final ParsedPlan plan;
+        public final LinkedHashMap<String, List<EvaMatch>> matches;
+        public final List<PlanChange<PlanEntry>> entryChanges;
+        public final List<PlanChange<EvaMatch>> matchChanges;
+        public final int reparsedDays;
+        // true beim ersten Abruf; dann ist alles ADDED
+        public final boolean initial;
+
+        Update(ParsedPlan plan, LinkedHashMap<String, List<EvaMatch>> matches, List<PlanChange<PlanEntry>> entryChanges,
+               List<PlanChange<EvaMatch>> matchChanges, int reparsedDays, boolean initial) {
+            this.plan = plan;
+            this.matches = matches;
+            this.entryChanges = entryChanges;
+            this.matchChanges = matchChanges;
+            this.reparsedDays = reparsedDays;
+            this.initial = initial;
+        }
+
+        public boolean hasChanges() {
+            return !entryChanges.isEmpty() || !matchChanges.isEmpty();
+        }
+    }
+
+    private final UntisParser parser;
+    private final EvaOverlapService overlapService;
+
+    // letzter Stand pro Tag
+    private Map<String, String> hashes = new HashMap<>();
+    private Map<String, List<PlanEntry>> entries = new HashMap<>();
+    private Map<String, Boolean> released = new HashMap<>();
+    private Map<String, List<EvaMatch>> matches = new HashMap<>();
+    private List<String> lastCourses;
+    private CourseIndex courseIndex;
+    private TimetableMatcher lastTimetable;
+    private boolean hasState;
+
+    public PlanChangeTracker() {
+        this(new UntisParser(), new EvaOverlapService());
+    }
+
+    public PlanChangeTracker(UntisParser parser, EvaOverlapService overlapService) {
+        this.parser = parser;
+        this.overlapService = overlapService;
+    }
+
+    // wie update(Document, String, ...), aber nur mit der Textfassung
+    public Update update(String planText, List<String> courses, TimetableMatcher timetable) {
+        return update((Document) null, planText, courses, timetable);
+    }
+
+    /**
+     * Verarbeitet den neuen Plan. Ändern sich Kursliste oder Stundenplan,
+     * werden alle Tage neu gefiltert, aber weiterhin nur die geänderten
+     * Blöcke neu geparst. Die Tabellen des Dokuments werden nur gelesen,
+     * wenn sich mindestens ein Tag geändert hat.
+     *
+     * @param planDoc das Dokument zu <code>planText</code> oder null
+     */
+    public Update update(Document planDoc, String planText, List<String> courses, TimetableMatcher timetable) {
+        return update(planDoc == null ? () -> null : () -> parser.parseTables(planDoc), planText, courses, timetable);
+    }
+
+    /**
+     * Wie oben, die Tabellen liefert aber <code>tables</code> (höchstens ein
+     * Aufruf, nur wenn sich ein Tag geändert hat; null = keine Tabellen).
+     * So können sich mehrere Tracker die Tabellen eines Dokuments teilen,
+     * wie im Dauerbetrieb.
+     */
+    public Update update(Supplier<LinkedHashMap<String, List<PlanEntry>>> tables, String planText,
+                         List<String> courses, TimetableMatcher timetable) {
+        boolean coursesChanged = !courses.equals(lastCourses);
+        boolean refilterAll = coursesChanged || timetable != lastTimetable;
+        if (coursesChanged) courseIndex = new CourseIndex(courses);
+
+        List<String> dayOrder = new ArrayList<>();
+        LinkedHashMap<String, List<PlanEntry>> newEntries = new LinkedHashMap<>();
+        LinkedHashMap<String, List<EvaMatch>> newMatches = new LinkedHashMap<>();
+        Map<String, String> newHashes = new HashMap<>();
+        Map<String, Boolean> newReleased = new HashMap<>();
+        List<PlanChange<PlanEntry>> entryChanges = new ArrayList<>();
+        List<PlanChange<EvaMatch>> matchChanges = new ArrayList<>();
+        int reparsed = 0;
+        LinkedHashMap<String, String> blocks = parser.splitByDay(planText);
+        LinkedHashMap<String, List<PlanEntry>> dayTables = null;
+        boolean tablesRead = false;
+
+        for (Map.Entry<String, String> block : blocks.entrySet()) {
+            String day = block.getKey();
+            String hash = Hashes.sha256(block.getValue());
+            dayOrder.add(day);
+            newHashes.put(day, hash);
+
+            boolean changed = !hash.equals(hashes.get(day));
+            List<PlanEntry> dayEntries;
+            if (changed) {
+                if (!tablesRead) {
+                    dayTables = tables.get();
+                    // die Tabellen nur, wenn sie dieselben Tage zeigen wie die Textblöcke, nach denen hier verglichen wird
+                    if (dayTables != null && !new ArrayList<>(dayTables.keySet()).equals(new ArrayList<>(blocks.keySet()))) dayTables = null;
+                    tablesRead = true;
+                }
+                dayEntries = dayTables != null ? dayTables.get(day) : parser.parseBlock(block.getValue());
+                newReleased.put(day, !UntisParser.isUnreleased(block.getValue()));
+                diff(day, entries.getOrDefault(day, Collections.emptyList()), dayEntries, PlanChangeTracker::lessonKey, entryChanges);
+                reparsed++;
+            } else {
+                dayEntries = entries.get(day);
+                newReleased.put(day, released.get(day));
+            }
+            newEntries.put(day, dayEntries);
+
+            List<EvaMatch> dayMatches;
+            if (changed || refilterAll) {
+                dayMatches = overlapService.filterDay(dayEntries, courseIndex, timetable);
+                diff(day, matches.getOrDefault(day, Collections.emptyList()), dayMatches, m -> lessonKey(m.entry), matchChanges);
+            } else {
+                dayMatches = matches.get(day);
+            }
+            newMatches.put(day, dayMatches);
+        }
+
+        // Tage, die nicht mehr im Plan stehen
+        for (Map.Entry<String, List<PlanEntry>> old : entries.entrySet()) {
+            if (newEntries.containsKey(old.getKey())) continue;
+            diff(old.getKey(), old.getValue(), Collections.emptyList(), PlanChangeTracker::lessonKey, entryChanges);
+            diff(old.getKey(), matches.get(old.getKey()), Collections.emptyList(), m -> lessonKey(m.entry), matchChanges);
+        }
+
+        boolean initial = !hasState;
+        hashes = newHashes;
+        entries = newEntries;
+        released = newReleased;
+        matches = newMatches;
+        lastCourses = new ArrayList<>(courses);
+        lastTimetable = timetable;
+        hasState = true;
+
+        return new Update(new ParsedPlan(dayOrder, newEntries, newReleased), newMatches,
+                entryChanges, matchChanges, reparsed, initial);
+    }
+
+    // vergisst den gespeicherten Stand, z. B. nach einem Profilwechsel
+    public void reset() {
+        hashes = new HashMap<>();
+        entries = new HashMap<>();
+        released = new HashMap<>();
+        matches = new HashMap<>();
+        lastCourses = null;
+        courseIndex = null;
+        lastTimetable = null;
+        hasState = false;
+    }
+
+    private static String lessonKey(PlanEntry e) {
+        return e.klasse + "|" + e.stunde + "|" + e.fach;
+    }
+
+    /**
+     * Vergleicht zwei Listen eines Tages. Gleiche Schlüssel werden der
+     * Reihe nach einander zugeordnet (ein Schlüssel kann mehrfach vorkommen).
+     */
+    private static <T> void diff(String day, List<T> before, List<T> after, Function<T, String> key, List<PlanChange<T>> out) {
+        Map<String, ArrayDeque<T>> old = new LinkedHashMap<>();
+        for (T t : before) old.computeIfAbsent(key.apply(t), k -> new ArrayDeque<>()).add(t);
+
+        for (T t : after) {
+            ArrayDeque<T> same = old.get(key.apply(t));
+            T prev = same == null ? null : same.poll();
+            if (prev == null) out.add(new PlanChange<>(PlanChange.Kind.ADDED, day, null, t));
+            else if (!prev.equals(t)) out.add(new PlanChange<>(PlanChange.Kind.CHANGED, day, prev, t));
+        }
+        for (ArrayDeque<T> rest : old.values()) {
+            for (T t : rest) out.add(new PlanChange<>(PlanChange.Kind.REMOVED, day, t, null));
+        }
+    }
+}
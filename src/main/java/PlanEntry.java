@@ -1,3 +1,5 @@
+import java.util.Objects;
+
 /**
  * Einfacher Datencontainer, der einen einzelnen Eintrag im Vertretungsplan
  * repräsentiert. Alle Felder sind öffentlich und unveränderlich, damit die
@@ -20,4 +22,20 @@ public class PlanEntry {
         this.lehrer = lehrer;
         this.info = info;
     }
+
+    // zwei Einträge sind gleich, wenn alle Spalten übereinstimmen
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PlanEntry)) return false;
+        PlanEntry e = (PlanEntry) o;
+        return Objects.equals(klasse, e.klasse) && Objects.equals(stunde, e.stunde)
+                && Objects.equals(fach, e.fach) && Objects.equals(raum, e.raum)
+                && Objects.equals(lehrer, e.lehrer) && Objects.equals(info, e.info);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(klasse, stunde, fach, raum, lehrer, info);
+    }
 }
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+ * Zerlegt eine einzelne Zeile des Vertretungsplans, ohne reguläre
+ * Ausdrücke zu verwenden. Die Zeile wird genau einmal Zeichen für Zeichen
+ * in Wörter (Folgen ohne Leerraum) zerlegt; anhand der Wortgrenzen wird
+ * dann entschieden, welche der Zeilenformen aus <code>UntisParser</code>
+ * vorliegt. Das Ergebnis ist für jede Zeile identisch mit der früheren
+ * Regex‑Kaskade (<code>ENTRY_PATTERN</code>, <code>FALLBACK_PATTERN</code>,
+ * <code>COMPACT_PATTERN</code> und tokenbasierter Fallback); der Test
+ * <code>PlanLineScannerTest</code> hält die Kaskade als Referenz.
+ *
+ * „Leerraum“ bedeutet hier das, was <code>\s</code> in Java‑Regexen
+ * erkennt, dazu die Zeilentrenner U+0085, U+2028 und U+2029. Diese
+ * werden wie Leerzeichen behandelt, auch in den Feldern des Eintrags.
+ *
+ * Eine Instanz ist nicht threadsicher, da sie ihre Puffer für die
+ * Wortgrenzen zwischen den Zeilen wiederverwendet.
+ */
+public class PlanLineScanner {
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+    // die aktuelle Zeile enthält Zeilentrenner, die in den Feldern zu Leerzeichen werden
+    private boolean separators;
+
+    /**
+     * Zerlegt eine bereits getrimmte, nicht leere Zeile. Das kann auch eine
+     * <code>TextLines.Line</code> sein; Strings entstehen dann nur für die
+     * Felder des Eintrags.
+     *
+     * @return den Eintrag oder null, wenn die Zeile kein Eintrag ist
+     */
+    public PlanEntry scan(CharSequence line) {
+        tokenize(line);
+
+        PlanEntry e = scanSpaced(line);
+        if (e != null) return e;
+        // Der tokenbasierte Fallback des Regex-Wegs braucht dieselben
+        // Bedingungen wie FALLBACK_PATTERN (mindestens fünf Wörter, das
+        // zweite eine Stundenzahl) und greift deshalb hier nie.
+        return scanCompact(line);
+    }
+
+    // Zeilen mit Leerraum zwischen den Spalten (ENTRY_PATTERN und FALLBACK_PATTERN)
+    private PlanEntry scanSpaced(CharSequence line) {
+        if (count < 4 || !isHour(line, 1)) return null;
+
+        // ENTRY_PATTERN: das Fach (ab dem dritten Wort) endet vor der ersten
+        // Lücke aus mindestens zwei Leerzeichen, auf die noch zwei Wörter folgen
+        for (int k = 3; k + 1 < count; k++) {
+            if (starts[k] - ends[k - 1] >= 2) {
+                return new PlanEntry(word(line, 0), word(line, 1),
+                        str(line, starts[2], ends[k - 1]).trim(),
+                        word(line, k), word(line, k + 1), rest(line, k + 2).trim());
+            }
+        }
+        // Ohne solche Lücke weicht die Regex auf ein leeres Fach aus, wenn
+        // schon nach der Stunde mindestens drei Leerzeichen stehen
+        if (starts[2] - ends[1] >= 3) {
+            return new PlanEntry(word(line, 0), word(line, 1), "",
+                    word(line, 2), word(line, 3), rest(line, 4).trim());
+        }
+
+        // FALLBACK_PATTERN: fünf Wörter, der Rest ist die Info
+        if (count < 5) return null;
+        return new PlanEntry(word(line, 0), word(line, 1), word(line, 2).trim(),
+                word(line, 3), word(line, 4), rest(line, 5).trim());
+    }
+
+    /**
+     * COMPACT_PATTERN für Zeilen ohne Spaltentrenner wie
+     * <code>Q24E-GK2---WgmEVA</code>: Stufe, Stunde, Fach, dann entweder
+     * "---" oder ein Raum aus 2–5 Großbuchstaben und 3–4 Ziffern, danach
+     * Lehrer und Info. Die Suchreihenfolge entspricht der Rückverfolgung der
+     * Regex (zweistellige Stunde zuerst, kürzestes Fach, längster Raum).
+     */
+    private PlanEntry scanCompact(CharSequence line) {
+        int len = line.length();
+        if (len < 3 || line.charAt(0) != 'Q' || !isDigit(line.charAt(1)) || !isDigit(line.charAt(2))) return null;
+
+        int maxHourDigits = len > 3 && isDigit(line.charAt(3)) ? 2 : 1;
+        for (int nd = maxHourDigits; nd >= 1; nd--) {
+            int fachStart = 2 + nd;
+            for (int p = fachStart; p < len; p++) {
+                int roomEnd = roomEnd(line, p);
+                if (roomEnd < 0) continue;
+
+                String tail = str(line, roomEnd, len).trim();
+                String info = "";
+                if (tail.endsWith("EVA")) { info = "EVA"; tail = tail.substring(0, tail.length() - 3); }
+                else if (tail.endsWith("VA")) { info = "VA"; tail = tail.substring(0, tail.length() - 2); }
+
+                return new PlanEntry(str(line, 0, 2), str(line, 2, fachStart),
+                        str(line, fachStart, p).trim(), str(line, p, roomEnd), tail.trim(), info);
+            }
+        }
+        return null;
+    }
+
+    // Ende des Raums ab Position p, wenn danach noch mindestens ein Zeichen folgt; sonst -1
+    private static int roomEnd(CharSequence line, int p) {
+        int len = line.length();
+        if (regionIs(line, p, "---") && p + 3 < len) return p + 3;
+
+        int letters = 0;
+        while (p + letters < len && letters <= 5 && isUpper(line.charAt(p + letters))) letters++;
+        // mehr als fünf Großbuchstaben: die Regex fände danach keine Ziffer
+        if (letters < 2 || letters > 5) return -1;
+        int q = p + letters;
+        int digits = 0;
+        while (q + digits < len && digits < 4 && isDigit(line.charAt(q + digits))) digits++;
+        if (digits < 3) return -1;
+        if (q + digits < len) return q + digits;
+        if (digits == 4 && q + 3 < len) return q + 3;
+        return -1;
+    }
+
+    // Zerlegt die Zeile in Wörter und merkt sich deren Grenzen
+    private void tokenize(CharSequence line) {
+        count = 0;
+        separators = false;
+        int len = line.length();
+        int i = 0;
+        while (i < len) {
+            char c = line.charAt(i);
+            if (isSpace(c)) {
+                if (isSeparator(c)) separators = true;
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < len && !isSpace(line.charAt(i))) i++;
+            add(start, i);
+        }
+    }
+
+    private void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private String word(CharSequence line, int idx) {
+        return str(line, starts[idx], ends[idx]);
+    }
+
+    // alles ab Wort idx bis zum Zeilenende (leer, wenn es das Wort nicht gibt)
+    private String rest(CharSequence line, int idx) {
+        return idx < count ? str(line, starts[idx], line.length()) : "";
+    }
+
+    // Kopie eines Ausschnitts; erst hier entsteht ein String
+    private String str(CharSequence line, int start, int end) {
+        String s = line.subSequence(start, end).toString();
+        if (!separators) return s;
+        return s.replace('\n', ' ').replace('\r', ' ').replace('\u0085', ' ')
+                .replace('\u2028', ' ').replace('\u2029', ' ');
+    }
+
+    // wie String.startsWith(prefix, offset)
+    private static boolean regionIs(CharSequence line, int offset, String prefix) {
+        if (offset + prefix.length() > line.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(offset + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Wort idx besteht aus ein oder zwei Ziffern
+    private boolean isHour(CharSequence line, int idx) {
+        int n = ends[idx] - starts[idx];
+        if (n < 1 || n > 2) return false;
+        for (int i = starts[idx]; i < ends[idx]; i++) {
+            if (!isDigit(line.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // \s in Java-Regexen plus die übrigen Zeilentrenner
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\u000B' || c == '\f' || isSeparator(c);
+    }
+
+    // Zeilentrenner; TextLines trennt nur an \n und \r, die anderen bleiben in der Zeile
+    private static boolean isSeparator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
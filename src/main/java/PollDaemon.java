@@ -0,0 +1,313 @@
+import org.jsoup.nodes.Document;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dauerbetrieb für die Kommandozeile: statt per Cron alle paar Minuten
+ * eine neue JVM zu starten, bleiben JVM, Sitzungen und Caches am Leben und
+ * die Profile werden selbst in Abständen aktualisiert. Jedes Profil plant
+ * nach einem Durchlauf seinen nächsten selbst ein.
+ *
+ * Der Abstand passt sich an: an Schulvormittagen und kurz nach einer
+ * Änderung am Plan wird häufiger abgefragt, nachts und am Wochenende
+ * selten. Ein Zufallsanteil verteilt die Anfragen.
+ *
+ * Vertretungsplan und Stundenplan‑PDF sind für alle Profile gleich und
+ * werden wie in <code>BatchRefresh</code> nur einmal geladen: wer als
+ * erstes Profil eines Durchgangs dran ist, holt sie, alle weiteren
+ * Profile verwenden diesen Stand, solange er jünger als
+ * <code>SHARED_MAX_AGE_MILLIS</code> ist. Pro Profil bleiben Login und
+ * (selten) die Kursliste.
+ *
+ * <code>maxConcurrent</code> begrenzt die gleichzeitigen Anfragen an
+ * bonniweb, nicht nur die Zahl der Profile: jede Anfrage (Login, Kurse,
+ * Plan, PDF) braucht eine Genehmigung aus demselben Semaphor.
+ */
+public class PollDaemon {
+    private static final long MINUTE = 60_000;
+    // so lange gilt „kurz nach einer Änderung“
+    private static final long AFTER_CHANGE_MILLIS = 15 * MINUTE;
+    // die Kursliste ändert sich selten und wird nur so oft neu geladen
+    private static final long COURSES_REFRESH_MILLIS = 6 * 60 * MINUTE;
+    // Anteil des Abstands, um den zufällig nach oben oder unten abgewichen wird
+    private static final double JITTER = 0.2;
+    // die ersten Abrufe werden über diesen Zeitraum verteilt
+    private static final long START_SPREAD_MILLIS = 30_000;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    // so lange gilt ein geladener Plan samt PDF für alle Profile; kürzer als der kleinste Abstand (2 Minuten - 20 %)
+    static final long SHARED_MAX_AGE_MILLIS = 60_000;
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+    private static final long PDF_TIMEOUT_SECONDS = 60;
+
+    // Zustand eines Profils zwischen zwei Durchläufen
+    private static class ProfileState {
+        final BatchRefresh.Profile profile;
+        final BonniwebClient client = new BonniwebClient();
+        final PlanChangeTracker tracker = new PlanChangeTracker();
+        boolean loggedIn;
+        List<String> courses;
+        long coursesAt;
+        long lastChangeAt;
+
+        ProfileState(BatchRefresh.Profile profile) {
+            this.profile = profile;
+        }
+    }
+
+    // einmal geladener Plan samt Stundenplan, gilt für alle Profile
+    private static class Shared {
+        final Document plan;
+        final String planText;
+        final TimetableMatcher timetable;
+        final long fetchedAt;
+        private LinkedHashMap<String, List<PlanEntry>> tables;
+        private boolean tablesRead;
+
+        Shared(Document plan, String planText, TimetableMatcher timetable, long fetchedAt) {
+            this.plan = plan;
+            this.planText = planText;
+            this.timetable = timetable;
+            this.fetchedAt = fetchedAt;
+        }
+
+        // Tabellen des Plans, einmal für alle Tracker (null, wenn keine)
+        synchronized LinkedHashMap<String, List<PlanEntry>> tables(UntisParser parser) {
+            if (!tablesRead) {
+                tables = parser.parseTables(plan);
+                tablesRead = true;
+            }
+            return tables;
+        }
+    }
+
+    private final String planResourceUrl;
+    private final String timetablePdfUrl;
+    private final SessionPool sessions;
+    private final ScheduledExecutorService scheduler;
+    // Genehmigungen für gleichzeitige Anfragen an bonniweb
+    private final Semaphore requests;
+    private final UntisParser parser = new UntisParser();
+    private final Object sharedLock = new Object();
+    private Shared shared;
+
+    /**
+     * @param maxConcurrent höchstens so viele Anfragen laufen gleichzeitig
+     */
+    public PollDaemon(String planResourceUrl, String timetablePdfUrl, int maxConcurrent, SessionPool sessions) {
+        this.planResourceUrl = planResourceUrl;
+        this.timetablePdfUrl = timetablePdfUrl;
+        this.sessions = sessions;
+        this.requests = new Semaphore(Math.max(1, maxConcurrent));
+        AtomicInteger num = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, maxConcurrent), r -> {
+            Thread t = new Thread(r, "poll-" + num.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Plant alle Profile ein und kehrt sofort zurück. Die ersten Abrufe
+     * werden zufällig über einige Sekunden verteilt.
+     */
+    public void start(List<BatchRefresh.Profile> profiles) {
+        for (BatchRefresh.Profile p : profiles) {
+            ProfileState state = new ProfileState(p);
+            long delay = ThreadLocalRandom.current().nextLong(START_SPREAD_MILLIS);
+            scheduler.schedule(() -> run(state), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // hält den aufrufenden Thread an, bis der Daemon beendet wird
+    public void awaitTermination() throws InterruptedException {
+        while (!scheduler.awaitTermination(1, TimeUnit.HOURS)) {
+            // weiter warten
+        }
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void run(ProfileState state) {
+        try {
+            refresh(state);
+        } catch (Exception e) {
+            state.loggedIn = false;
+            log(state, "Fehler: " + message(e));
+        } finally {
+            if (!scheduler.isShutdown()) {
+                long sinceChange = System.currentTimeMillis() - state.lastChangeAt;
+                long delay = nextDelayMillis(LocalDateTime.now(), sinceChange, ThreadLocalRandom.current());
+                scheduler.schedule(() -> run(state), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void refresh(ProfileState state) throws Exception {
+        if (!state.loggedIn) {
+            boolean ok = limited(() -> sessions.login(state.client, state.profile.username, state.profile.password),
+                    REQUEST_TIMEOUT_SECONDS);
+            if (!ok) {
+                log(state, "Login fehlgeschlagen.");
+                return;
+            }
+            state.loggedIn = true;
+        }
+
+        long now = System.currentTimeMillis();
+        if (state.courses == null || now - state.coursesAt >= COURSES_REFRESH_MILLIS) {
+            try {
+                state.courses = limited(state.client::fetchCourses, REQUEST_TIMEOUT_SECONDS);
+                state.coursesAt = now;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                // mit der bisherigen Kursliste weitermachen
+                log(state, "Kurse konnten nicht geladen werden: " + message(e));
+            }
+        }
+
+        Shared s;
+        try {
+            s = shared(state.client);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Exception("Plan konnte nicht geladen werden: " + message(e));
+        }
+        if (s == null) {
+            // Sitzung abgelaufen; beim nächsten Durchlauf neu anmelden
+            state.loggedIn = false;
+            log(state, "Sitzung abgelaufen.");
+            return;
+        }
+        List<String> courses = state.courses != null ? state.courses : Collections.emptyList();
+
+        PlanChangeTracker.Update update = state.tracker.update(() -> s.tables(parser), s.planText, courses, s.timetable);
+        if (update.initial) {
+            report(state, update.plan.today, update);
+            report(state, update.plan.tomorrow, update);
+        } else if (!update.matchChanges.isEmpty()) {
+            state.lastChangeAt = System.currentTimeMillis();
+            for (PlanChange<EvaMatch> c : update.matchChanges) {
+                EvaMatch m = c.value();
+                log(state, c.kind + " " + c.day + ": " + m.entry.fach + " - Stunde " + m.entry.stunde + " - " + m.entry.lehrer);
+            }
+        } else if (update.hasChanges()) {
+            // Plan geändert, aber nicht bei den eigenen Kursen
+            state.lastChangeAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Plan und Stundenplan dieses Durchgangs. Ist der letzte Stand noch
+     * frisch, wird er verwendet; sonst lädt dieser Thread beide mit der
+     * Sitzung des Profils, während die übrigen Profile auf das Ergebnis
+     * warten. Liefert null, wenn statt des Plans die Login‑Seite kam. Kann
+     * das PDF nicht gelesen werden, bleibt der vorige Stundenplan gültig.
+     */
+    private Shared shared(BonniwebClient client) throws Exception {
+        synchronized (sharedLock) {
+            long now = System.currentTimeMillis();
+            if (shared != null && now - shared.fetchedAt < SHARED_MAX_AGE_MILLIS) return shared;
+
+            Document plan = limited(() -> client.fetchPlanDocumentFromResource(planResourceUrl), REQUEST_TIMEOUT_SECONDS);
+            if (plan == null) return null;
+
+            TimetableMatcher timetable = shared != null ? shared.timetable : null;
+            try {
+                PdfTextCache.Entry pdf = limited(() -> client.fetchPdf(timetablePdfUrl), PDF_TIMEOUT_SECONDS);
+                timetable = pdf == null || pdf.isBlank() ? null : pdf.matcher();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                System.out.println("[" + LocalTime.now().format(TIME) + "] Stundenplan konnte nicht gelesen werden: " + message(e));
+            }
+            shared = new Shared(plan, BonniwebClient.planText(plan), timetable, now);
+            return shared;
+        }
+    }
+
+    /**
+     * Führt eine Anfrage aus, sobald eine der <code>maxConcurrent</code>
+     * Genehmigungen frei ist. Läuft sie länger als das Zeitlimit, wird sie
+     * wie in <code>FetchPipeline</code> unterbrochen.
+     */
+    private <T> T limited(FetchPipeline.Stage<T> stage, long timeoutSeconds) throws Exception {
+        requests.acquire();
+        try {
+            CompletableFuture<T> f = FetchPipeline.submit(stage, timeoutSeconds);
+            try {
+                return f.get();
+            } catch (InterruptedException e) {
+                f.cancel(true);
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = FetchPipeline.unwrap(e.getCause());
+                if (cause instanceof Exception) throw (Exception) cause;
+                throw e;
+            }
+        } finally {
+            requests.release();
+        }
+    }
+
+    // manche Netzwerkfehler (z. B. Zeitüberschreitung) haben keine Meldung
+    private static String message(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    private void report(ProfileState state, String day, PlanChangeTracker.Update update) {
+        if (day == null) return;
+        List<EvaMatch> list = update.matches.getOrDefault(day, Collections.emptyList());
+        log(state, day + ": " + list.size() + " EVA-Überschneidung(en)");
+        for (EvaMatch m : list) {
+            log(state, "  " + m.entry.fach + " - Stunde " + m.entry.stunde + " - " + m.entry.lehrer);
+        }
+    }
+
+    private static void log(ProfileState state, String message) {
+        System.out.println("[" + LocalTime.now().format(TIME) + "] " + state.profile.key + ": " + message);
+    }
+
+    /**
+     * Abstand bis zum nächsten Abruf. Grundwerte: Schulvormittag (Mo–Fr
+     * 6–9 Uhr) 3 Minuten, übriger Schultag 10 Minuten, nachts (22–6 Uhr)
+     * und am Wochenende 60 Minuten. Sonntagabend wird wie ein Schultag
+     * behandelt, weil dann der Plan für Montag erscheint. Innerhalb von
+     * 15 Minuten nach einer Änderung höchstens 2 Minuten. Darauf kommt ein
+     * Zufallsanteil von ±20 %.
+     */
+    static long nextDelayMillis(LocalDateTime now, long millisSinceChange, Random random) {
+        DayOfWeek day = now.getDayOfWeek();
+        int hour = now.getHour();
+        boolean night = hour >= 22 || hour < 6;
+        boolean weekend = day == DayOfWeek.SATURDAY || (day == DayOfWeek.SUNDAY && hour < 17);
+
+        long base;
+        if (night || weekend) base = 60 * MINUTE;
+        else if (hour < 9 && day != DayOfWeek.SUNDAY) base = 3 * MINUTE;
+        else base = 10 * MINUTE;
+
+        if (millisSinceChange >= 0 && millisSinceChange < AFTER_CHANGE_MILLIS) base = Math.min(base, 2 * MINUTE);
+
+        double factor = 1 + (random.nextDouble() * 2 - 1) * JITTER;
+        return Math.round(base * factor);
+    }
+}
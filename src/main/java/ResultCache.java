@@ -0,0 +1,165 @@
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Speichert pro Benutzer das zuletzt erfolgreich geladene Ergebnis
+ * (EVA‑Treffer für heute und morgen, Kursliste, Stundenplantext), damit
+ * die GUI es sofort beim Auswählen des Profils anzeigen kann. Die
+ * Aktualisierung über das Netz läuft danach im Hintergrund.
+ *
+ * Jeder Benutzer hat eine eigene Properties‑Datei im Ordner
+ * <code>results</code> des Datenverzeichnisses; der Dateiname ist der
+ * SHA‑256 des Benutzernamens. Die Dateien sind auf den aktuellen Benutzer
+ * beschränkt.
+ */
+public class ResultCache {
+    private static final Path DEFAULT_DIR = AppFiles.resolve("results");
+
+    // ein gespeichertes Ergebnis; Tage sind null, wenn der Plan keine hatte
+    public static class Result {
+        public final String today;
+        public final String tomorrow;
+        public final List<EvaMatch> todayMatches;
+        public final List<EvaMatch> tomorrowMatches;
+        public final List<String> courses;
+        public final String timetableText;
+        public final long savedAt;
+
+        public Result(String today, String tomorrow, List<EvaMatch> todayMatches, List<EvaMatch> tomorrowMatches,
+                      List<String> courses, String timetableText, long savedAt) {
+            this.today = today;
+            this.tomorrow = tomorrow;
+            this.todayMatches = todayMatches;
+            this.tomorrowMatches = tomorrowMatches;
+            this.courses = courses;
+            this.timetableText = timetableText;
+            this.savedAt = savedAt;
+        }
+
+        // gleicher Inhalt, unabhängig vom Zeitpunkt
+        public boolean sameContent(Result other) {
+            return other != null
+                    && Objects.equals(today, other.today) && Objects.equals(tomorrow, other.tomorrow)
+                    && todayMatches.equals(other.todayMatches) && tomorrowMatches.equals(other.tomorrowMatches)
+                    && courses.equals(other.courses) && timetableText.equals(other.timetableText);
+        }
+    }
+
+    private final Path dir;
+
+    public ResultCache() {
+        this(DEFAULT_DIR);
+    }
+
+    public ResultCache(Path dir) {
+        this.dir = dir;
+    }
+
+    // letztes Ergebnis des Benutzers oder null
+    public Result load(String username) {
+        Path file = file(username);
+        if (!Files.exists(file)) return null;
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+            return new Result(
+                    props.getProperty("today"),
+                    props.getProperty("tomorrow"),
+                    readMatches(props, "today"),
+                    readMatches(props, "tomorrow"),
+                    readList(props, "course"),
+                    props.getProperty("timetable", ""),
+                    Long.parseLong(props.getProperty("savedAt", "0")));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // schreibt das Ergebnis (erst in eine temporäre Datei, dann an ihren Platz);
+    // ein älteres Ergebnis ersetzt kein neueres, falls zwei Schreibvorgänge sich überholen
+    public synchronized void store(String username, Result r) {
+        Result current = load(username);
+        if (current != null && current.savedAt > r.savedAt) return;
+
+        Properties props = new Properties();
+        if (r.today != null) props.setProperty("today", r.today);
+        if (r.tomorrow != null) props.setProperty("tomorrow", r.tomorrow);
+        writeMatches(props, "today", r.todayMatches);
+        writeMatches(props, "tomorrow", r.tomorrowMatches);
+        writeList(props, "course", r.courses);
+        props.setProperty("timetable", r.timetableText);
+        props.setProperty("savedAt", Long.toString(r.savedAt));
+
+        Path file = file(username);
+        try {
+            Files.createDirectories(dir);
+            // eigener Name je Schreibvorgang, schon vor dem Schreiben nur für den Besitzer lesbar
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                AppFiles.restrictToOwner(tmp);
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    props.store(out, "Vertretungsplan results");
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (Exception ignored) {}
+    }
+
+    private Path file(String username) {
+        return dir.resolve(Hashes.sha256(username) + ".properties");
+    }
+
+    private static void writeMatches(Properties props, String prefix, List<EvaMatch> matches) {
+        props.setProperty(prefix + ".count", Integer.toString(matches.size()));
+        for (int i = 0; i < matches.size(); i++) {
+            EvaMatch m = matches.get(i);
+            String p = prefix + "." + i + ".";
+            props.setProperty(p + "klasse", m.entry.klasse);
+            props.setProperty(p + "stunde", m.entry.stunde);
+            props.setProperty(p + "fach", m.entry.fach);
+            props.setProperty(p + "raum", m.entry.raum);
+            props.setProperty(p + "lehrer", m.entry.lehrer);
+            props.setProperty(p + "info", m.entry.info);
+            props.setProperty(p + "levelMismatch", Boolean.toString(m.levelMismatch));
+        }
+    }
+
+    private static List<EvaMatch> readMatches(Properties props, String prefix) {
+        int count = Integer.parseInt(props.getProperty(prefix + ".count", "0"));
+        List<EvaMatch> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String p = prefix + "." + i + ".";
+            PlanEntry e = new PlanEntry(
+                    props.getProperty(p + "klasse", ""),
+                    props.getProperty(p + "stunde", ""),
+                    props.getProperty(p + "fach", ""),
+                    props.getProperty(p + "raum", ""),
+                    props.getProperty(p + "lehrer", ""),
+                    props.getProperty(p + "info", ""));
+            matches.add(new EvaMatch(e, Boolean.parseBoolean(props.getProperty(p + "levelMismatch"))));
+        }
+        return matches;
+    }
+
+    private static void writeList(Properties props, String prefix, List<String> values) {
+        props.setProperty(prefix + ".count", Integer.toString(values.size()));
+        for (int i = 0; i < values.size(); i++) props.setProperty(prefix + "." + i, values.get(i));
+    }
+
+    private static List<String> readList(Properties props, String prefix) {
+        int count = Integer.parseInt(props.getProperty(prefix + ".count", "0"));
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) values.add(props.getProperty(prefix + "." + i, ""));
+        return Collections.unmodifiableList(values);
+    }
+}
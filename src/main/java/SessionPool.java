@@ -0,0 +1,167 @@
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Speichert die Cookies einer bonniweb‑Sitzung pro Server und Benutzer auf
+ * der Festplatte, damit nicht bei jedem Start der komplette Login‑Ablauf
+ * (mehrere GETs, POST und Weiterleitungen) durchlaufen werden muss. Der
+ * Schlüssel enthält die Basis‑URL, damit z. B. eine Sitzung des lokalen
+ * <code>MockBonniwebServer</code> nie an bonniweb.de geschickt wird.
+ *
+ * Vor der Wiederverwendung wird eine gespeicherte Sitzung mit einer
+ * einzelnen, billigen Anfrage geprüft; nur wenn sie abgelaufen ist, wird
+ * <code>BonniwebClient.login</code> ausgeführt. Die Datei ist auf den
+ * aktuellen Benutzer beschränkt, da die Cookies einem Passwort
+ * gleichkommen. GUI, Kommandozeile und Dauerbetrieb können sie
+ * gleichzeitig schreiben. Beim Speichern wird die Datei deshalb unter einer
+ * Dateisperre (<code>sessions.properties.lock</code>) neu eingelesen, nur
+ * die eigene Änderung eingetragen und das Ergebnis über eine temporäre
+ * Datei atomar ersetzt; Sitzungen anderer Prozesse bleiben so erhalten.
+ */
+public class SessionPool {
+    private static final Path DEFAULT_PATH = AppFiles.resolve("sessions.properties");
+    private static final String PREFIX = "session.";
+    // eine JVM darf dieselbe Datei nur einmal sperren; mehrere Pools im selben Prozess warten hier
+    private static final Object JVM_LOCK = new Object();
+
+    private final Path path;
+    private final Properties props = new Properties();
+
+    public SessionPool() {
+        this(DEFAULT_PATH);
+    }
+
+    public SessionPool(Path path) {
+        this.path = path;
+        read(props);
+    }
+
+    /**
+     * Sorgt dafür, dass der Client angemeldet ist. Zuerst wird die
+     * gespeicherte Sitzung des Benutzers geprüft; ist sie noch gültig,
+     * entfällt der Login. Andernfalls wird normal angemeldet und die neue
+     * Sitzung gespeichert.
+     */
+    public boolean login(BonniwebClient client, String username, String password) throws Exception {
+        String server = client.getBaseUrl();
+        Map<String, String> saved = load(server, username);
+        if (!saved.isEmpty()) {
+            client.restoreCookies(saved);
+            if (client.hasValidSession()) {
+                store(server, username, client.getCookies());
+                return true;
+            }
+            client.restoreCookies(Map.of());
+        }
+
+        if (!client.login(username, password)) {
+            remove(server, username);
+            return false;
+        }
+        store(server, username, client.getCookies());
+        return true;
+    }
+
+    // Liest die gespeicherten Cookies eines Benutzers auf diesem Server (leer, wenn keine)
+    public synchronized Map<String, String> load(String server, String username) {
+        Map<String, String> cookies = new LinkedHashMap<>();
+        String raw = props.getProperty(key(server, username, "cookies"), "");
+        for (String pair : raw.split(";")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+        }
+        return cookies;
+    }
+
+    // Speichert die Cookies eines Benutzers auf diesem Server und schreibt die Datei neu
+    public synchronized void store(String server, String username, Map<String, String> cookies) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> c : cookies.entrySet()) {
+            if (sb.length() > 0) sb.append("; ");
+            sb.append(c.getKey()).append('=').append(c.getValue());
+        }
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put(key(server, username, "cookies"), sb.toString());
+        changes.put(key(server, username, "saved"), String.valueOf(System.currentTimeMillis()));
+        save(changes);
+    }
+
+    // Entfernt die Sitzung eines Benutzers auf diesem Server, z. B. nach fehlgeschlagenem Login
+    public synchronized void remove(String server, String username) {
+        if (props.remove(key(server, username, "cookies")) == null) return;
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put(key(server, username, "cookies"), null);
+        changes.put(key(server, username, "saved"), null);
+        save(changes);
+    }
+
+    // z. B. "session.https://bonniweb.de|max.cookies"
+    private static String key(String server, String username, String field) {
+        return PREFIX + server + "|" + username + "." + field;
+    }
+
+    // liest die Datei; Einträge ohne Basis-URL im Schlüssel (ältere Fassung) lassen sich keinem Server zuordnen
+    private void read(Properties into) {
+        if (!Files.exists(path)) return;
+        try (InputStream in = Files.newInputStream(path)) {
+            into.load(in);
+        } catch (Exception ignored) {}
+        for (String k : new ArrayList<>(into.stringPropertyNames())) {
+            if (!k.startsWith(PREFIX) || k.indexOf('|') < 0) into.remove(k);
+        }
+    }
+
+    /**
+     * Trägt die Änderungen (null = entfernen) in den aktuellen Stand der
+     * Datei ein und ersetzt sie: unter der Sperre neu einlesen, ändern, in
+     * eine nur für den Besitzer lesbare temporäre Datei schreiben und
+     * atomar verschieben. Der eigene Stand übernimmt dabei auch die
+     * Sitzungen, die andere Prozesse inzwischen gespeichert haben.
+     */
+    private void save(Map<String, String> changes) {
+        AppFiles.ensureParentDir(path);
+        Path lockFile = path.resolveSibling(path.getFileName() + ".lock");
+        synchronized (JVM_LOCK) {
+            try (FileChannel ch = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = ch.lock()) {
+                Properties current = new Properties();
+                read(current);
+                for (Map.Entry<String, String> c : changes.entrySet()) {
+                    if (c.getValue() == null) current.remove(c.getKey());
+                    else current.setProperty(c.getKey(), c.getValue());
+                }
+
+                Path dir = path.toAbsolutePath().getParent();
+                Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+                try {
+                    AppFiles.restrictToOwner(tmp);
+                    try (OutputStream out = Files.newOutputStream(tmp)) {
+                        current.store(out, "Vertretungsplan sessions");
+                    }
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                props.clear();
+                props.putAll(current);
+            } catch (Exception e) {
+                // Datei nicht schreibbar: die Änderung gilt wenigstens in diesem Prozess
+                for (Map.Entry<String, String> c : changes.entrySet()) {
+                    if (c.getValue() == null) props.remove(c.getKey());
+                    else props.setProperty(c.getKey(), c.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Kompakter Binär‑Schnappschuss der Daten, deren Aufbau beim Start am
+ * meisten kostet: der fertige Index des <code>TimetableMatcher</code>
+ * (zum SHA‑256 des Stundenplan‑PDFs) und die Kursliste jedes Benutzers.
+ * Ein per Cron gestarteter Lauf muss so weder den Index neu bauen noch die
+ * Kursseite abrufen, solange sich die Quellen nicht geändert haben.
+ *
+ * Aufbau der Datei: Kennung, Version, Länge der Nutzdaten, Nutzdaten,
+ * CRC32 der Nutzdaten. Alle Zeichenketten stehen einmal in einer Tabelle
+ * am Anfang der Nutzdaten und werden danach nur über ihre Nummer
+ * angesprochen. Eine unlesbare, beschädigte oder veraltete Datei wird
+ * einfach ignoriert.
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x56505353; // "VPSS"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private String timetableHash;
+    private TimetableMatcher timetable;
+    private final Map<String, List<String>> courses = new LinkedHashMap<>();
+    private final Map<String, Long> savedAt = new HashMap<>();
+    private boolean dirty;
+
+    private Snapshot(Path file) {
+        this.file = file;
+    }
+
+    // Schnappschuss aus dem Datenverzeichnis
+    public static Snapshot load() {
+        return load(AppFiles.resolve("snapshot.bin"));
+    }
+
+    /**
+     * Liest den Schnappschuss. Fehlt die Datei oder passt sie nicht
+     * (Kennung, Version, Prüfsumme), ist das Ergebnis leer.
+     */
+    public static Snapshot load(Path file) {
+        Snapshot s = new Snapshot(file);
+        if (!Files.exists(file)) return s;
+        try {
+            s.read(ByteBuffer.wrap(Files.readAllBytes(file)));
+        } catch (Exception e) {
+            s = new Snapshot(file);
+        }
+        return s;
+    }
+
+    // Index für das PDF mit diesem Hash, sonst null
+    public synchronized TimetableMatcher timetable(String pdfHash) {
+        return pdfHash != null && pdfHash.equals(timetableHash) ? timetable : null;
+    }
+
+    public synchronized void putTimetable(String pdfHash, TimetableMatcher matcher) {
+        timetableHash = pdfHash;
+        timetable = matcher;
+        dirty = true;
+    }
+
+    // gespeicherte Kursliste, wenn sie jünger als maxAgeMillis ist, sonst null
+    public synchronized List<String> courses(String username, long maxAgeMillis) {
+        Long at = savedAt.get(username);
+        if (at == null || System.currentTimeMillis() - at > maxAgeMillis) return null;
+        return courses.get(username);
+    }
+
+    public synchronized void putCourses(String username, List<String> list) {
+        courses.put(username, new ArrayList<>(list));
+        savedAt.put(username, System.currentTimeMillis());
+        dirty = true;
+    }
+
+    /**
+     * Schreibt den Schnappschuss, falls sich etwas geändert hat. Die Datei
+     * wird unter eigenem Namen angelegt, auf den Besitzer beschränkt,
+     * vollständig geschrieben und dann an ihren Platz verschoben.
+     */
+    public synchronized void save() {
+        if (!dirty) return;
+        try {
+            byte[] payload = payload();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 20);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(crc.getValue());
+            out.flush();
+
+            AppFiles.ensureParentDir(file);
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                AppFiles.restrictToOwner(tmp);
+                Files.write(tmp, bytes.toByteArray());
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            dirty = false;
+        } catch (Exception ignored) {}
+    }
+
+    private byte[] payload() throws Exception {
+        // Zeichenkettentabelle aufbauen
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        Map<String, Set<String>> subjects = timetable == null ? new HashMap<>() : timetable.subjectIndex();
+        Map<String, Set<String>> hours = timetable == null ? new HashMap<>() : timetable.getHourIndex();
+        if (timetable != null) {
+            id(ids, timetableHash);
+            for (Map.Entry<String, Set<String>> e : subjects.entrySet()) {
+                id(ids, e.getKey());
+                for (String p : e.getValue()) id(ids, p);
+            }
+            for (Map.Entry<String, Set<String>> e : hours.entrySet()) {
+                id(ids, e.getKey());
+                for (String w : e.getValue()) id(ids, w);
+            }
+        }
+        for (Map.Entry<String, List<String>> e : courses.entrySet()) {
+            id(ids, e.getKey());
+            for (String c : e.getValue()) id(ids, c);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ids.size());
+        for (String s : ids.keySet()) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        out.writeBoolean(timetable != null);
+        if (timetable != null) {
+            out.writeInt(ids.get(timetableHash));
+            writeIndex(out, ids, subjects);
+            writeIndex(out, ids, hours);
+        }
+
+        out.writeInt(courses.size());
+        for (Map.Entry<String, List<String>> e : courses.entrySet()) {
+            out.writeInt(ids.get(e.getKey()));
+            out.writeLong(savedAt.get(e.getKey()));
+            out.writeInt(e.getValue().size());
+            for (String c : e.getValue()) out.writeInt(ids.get(c));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void id(Map<String, Integer> ids, String s) {
+        ids.putIfAbsent(s, ids.size());
+    }
+
+    private static void writeIndex(DataOutputStream out, Map<String, Integer> ids, Map<String, Set<String>> index) throws Exception {
+        out.writeInt(index.size());
+        for (Map.Entry<String, Set<String>> e : index.entrySet()) {
+            out.writeInt(ids.get(e.getKey()));
+            out.writeInt(e.getValue().size());
+            for (String v : e.getValue()) out.writeInt(ids.get(v));
+        }
+    }
+
+    private void read(ByteBuffer buf) {
+        if (buf.getInt() != MAGIC) throw new IllegalStateException("Keine Snapshot-Datei");
+        if (buf.getInt() != VERSION) throw new IllegalStateException("Andere Snapshot-Version");
+        int length = buf.getInt();
+        ByteBuffer payload = buf.slice();
+        payload.limit(length);
+        buf.position(buf.position() + length);
+        long expected = buf.getLong();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != expected) throw new IllegalStateException("Prüfsumme falsch");
+
+        String[] strings = new String[payload.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] b = new byte[payload.getInt()];
+            payload.get(b);
+            strings[i] = new String(b, StandardCharsets.UTF_8);
+        }
+
+        if (payload.get() != 0) {
+            timetableHash = strings[payload.getInt()];
+            Map<String, Set<String>> subjects = readIndex(payload, strings);
+            Map<String, Set<String>> hours = readIndex(payload, strings);
+            timetable = new TimetableMatcher(subjects, hours);
+        }
+
+        int profiles = payload.getInt();
+        for (int i = 0; i < profiles; i++) {
+            String user = strings[payload.getInt()];
+            long at = payload.getLong();
+            int n = payload.getInt();
+            List<String> list = new ArrayList<>(n);
+            for (int j = 0; j < n; j++) list.add(strings[payload.getInt()]);
+            courses.put(user, list);
+            savedAt.put(user, at);
+        }
+    }
+
+    private static Map<String, Set<String>> readIndex(ByteBuffer buf, String[] strings) {
+        int size = buf.getInt();
+        Map<String, Set<String>> index = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = strings[buf.getInt()];
+            int n = buf.getInt();
+            Set<String> values = new LinkedHashSet<>(n * 2);
+            for (int j = 0; j < n; j++) values.add(strings[buf.getInt()]);
+            index.put(key, values);
+        }
+        return index;
+    }
+}
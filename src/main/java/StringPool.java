@@ -0,0 +1,71 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wörterbuch für die Spaltenwerte des Vertretungsplans. Klassen, Fächer,
+ * Räume, Lehrer und Infos wiederholen sich von Zeile zu Zeile und von Tag
+ * zu Tag ständig; jeder Wert wird hier genau einmal gespeichert und
+ * bekommt eine fortlaufende Nummer. <code>CompactDay</code> speichert dann
+ * nur noch diese Nummern.
+ *
+ * Einträge werden nie entfernt. Deshalb gibt es zwei Arten von Pools:
+ * <ul>
+ *   <li><code>columns()</code> für Klasse, Fach, Raum und Lehrer. Diese
+ *       Werte kommen aus den Stammdaten der Schule, es sind nur einige
+ *       hundert; der Pool lebt so lange wie die JVM, und alle geparsten
+ *       Tage (auch aus verschiedenen Abrufen, z. B. in der Historie des
+ *       <code>PlanChangeTracker</code>) teilen sich dieselben Instanzen.</li>
+ *   <li>ein eigener Pool je Parse‑Durchlauf (siehe <code>UntisParser</code>)
+ *       für die Info und ungewöhnliche Stunden wie „3-4“. Das sind freie
+ *       Texte; sie werden mit den Tagen des Durchlaufs freigegeben und
+ *       sammeln sich im Dauerbetrieb nicht an.</li>
+ * </ul>
+ *
+ * Threadsicher: Nachschlagen läuft ohne Sperre, nur das Anlegen eines
+ * neuen Wertes ist synchronisiert.
+ */
+public final class StringPool {
+    private static final StringPool COLUMNS = new StringPool();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[256];
+    private int size;
+
+    // gemeinsamer Pool für Klasse, Fach, Raum und Lehrer
+    public static StringPool columns() {
+        return COLUMNS;
+    }
+
+    // Nummer des Wertes; legt ihn an, falls er neu ist
+    public int id(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        return add(value);
+    }
+
+    // der gespeicherte Wert zu einer Nummer
+    public String get(int id) {
+        return values[id];
+    }
+
+    // gleicher Inhalt, aber die Instanz aus dem Pool
+    public String intern(String value) {
+        return value == null ? null : get(id(value));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        String[] v = values;
+        if (size == v.length) v = Arrays.copyOf(v, size * 2);
+        v[size] = value;
+        values = v;
+        // erst nach dem Eintrag im Array sichtbar machen
+        ids.put(value, size);
+        return size++;
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * Gemeinsame Zeilenquelle für den Text von Vertretungsplan und
+ * Stundenplan. Jedes Zeichen wird genau einmal angefasst: dabei werden die
+ * Zeilenenden vereinheitlicht ("\r\n" und "\r" werden zu "\n"), geschützte
+ * Leerzeichen (U+00A0) zu normalen, und jede fertige Zeile geht als
+ * <code>Line</code> an den <code>Handler</code>.
+ *
+ * Eine <code>Line</code> ist nur eine Sicht auf den internen Puffer und
+ * kopiert keine Zeichen. Sie gilt nur während des Handler‑Aufrufs; wer die
+ * Zeile länger braucht, ruft <code>toString()</code> auf.
+ *
+ * Der Text kann am Stück kommen (<code>forEachLine</code>) oder stückweise
+ * (<code>append</code>, z. B. direkt aus PDFBox). Eine Instanz ist nicht
+ * threadsicher.
+ */
+public final class TextLines {
+
+    // bekommt jede fertige Zeile
+    public interface Handler {
+        void line(Line line);
+    }
+
+    /**
+     * Sicht auf eine Zeile ohne Zeilenende. <code>subSequence</code> und
+     * <code>toString</code> liefern Kopien als String, alles andere arbeitet
+     * direkt auf dem Puffer.
+     */
+    public static final class Line implements CharSequence {
+        private char[] buf;
+        private int start;
+        private int end;
+        private boolean terminated;
+
+        private Line() {}
+
+        private Line(char[] buf, int start, int end, boolean terminated) {
+            this.buf = buf;
+            this.start = start;
+            this.end = end;
+            this.terminated = terminated;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+            return buf[start + index];
+        }
+
+        @Override
+        public String subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) throw new IndexOutOfBoundsException(from);
+            return new String(buf, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, start, end - start);
+        }
+
+        // true, wenn im Text ein Zeilenende folgte (bei der letzten Zeile evtl. nicht)
+        public boolean terminated() {
+            return terminated;
+        }
+
+        // wie String.trim, aber als neue Sicht auf denselben Puffer
+        public Line trim() {
+            int s = start;
+            int e = end;
+            while (s < e && buf[s] <= ' ') s++;
+            while (e > s && buf[e - 1] <= ' ') e--;
+            return s == start && e == end ? this : new Line(buf, s, e, terminated);
+        }
+
+        public boolean startsWith(String prefix) {
+            if (prefix.length() > end - start) return false;
+            for (int i = 0; i < prefix.length(); i++) {
+                if (buf[start + i] != prefix.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        // schreibt die Zeile in ein Ziel, ohne einen String zu bauen
+        public void appendTo(StringBuilder sb) {
+            sb.append(buf, start, end - start);
+        }
+    }
+
+    private final Handler handler;
+    private final Line line = new Line();
+    private char[] buf = new char[256];
+    private int len;
+    private boolean afterCr;
+
+    public TextLines(Handler handler) {
+        this.handler = handler;
+    }
+
+    // Zerlegt einen vollständigen Text in normalisierte Zeilen
+    public static void forEachLine(CharSequence text, Handler handler) {
+        new TextLines(handler).append(text).finish();
+    }
+
+    /**
+     * Normalisiert einen Text in einem einzigen Durchlauf, ohne ihn in
+     * Zeilen zu zerlegen. Entspricht
+     * <code>replace("\r\n", "\n").replace("\r", "\n").replace('\u00A0', ' ')</code>.
+     */
+    public static String normalize(CharSequence text) {
+        int n = text.length();
+        char[] out = new char[n];
+        int len = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < n && text.charAt(i + 1) == '\n') i++;
+                c = '\n';
+            } else if (c == '\u00A0') {
+                c = ' ';
+            }
+            out[len++] = c;
+        }
+        return new String(out, 0, len);
+    }
+
+    public TextLines append(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) append(chars.charAt(i));
+        return this;
+    }
+
+    public TextLines append(char[] chars, int off, int count) {
+        for (int i = off; i < off + count; i++) append(chars[i]);
+        return this;
+    }
+
+    public TextLines append(char c) {
+        // "\r\n" zählt als ein Zeilenende
+        if (c == '\n' && afterCr) {
+            afterCr = false;
+            return this;
+        }
+        afterCr = c == '\r';
+        if (c == '\r' || c == '\n') {
+            emit(true);
+            return this;
+        }
+        if (c == '\u00A0') c = ' ';
+        if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+        buf[len++] = c;
+        return this;
+    }
+
+    // beendet die aktuelle Zeile, als wäre ein Zeilenende gekommen
+    public TextLines endLine() {
+        afterCr = false;
+        emit(true);
+        return this;
+    }
+
+    // gibt eine angefangene letzte Zeile (ohne Zeilenende) noch an den Handler
+    public void finish() {
+        if (len > 0) emit(false);
+    }
+
+    private void emit(boolean terminated) {
+        line.buf = buf;
+        line.start = 0;
+        line.end = len;
+        line.terminated = terminated;
+        len = 0;
+        handler.line(line);
+    }
+}
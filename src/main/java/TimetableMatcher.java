@@ -1,7 +1,12 @@
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -9,15 +14,27 @@ import java.util.regex.Pattern;
  * Helfer, der den Text eines Stundenplans (häufig aus einer PDF kopiert)
  * entgegennimmt und ihn in Zeilen unterteilt, die nach der am Anfang
  * stehenden Stundenzahl gruppiert sind. Er bietet auch Methoden an, um
- * einfache Fragen wie „taucht dieses Fach/Lehrer in Stunde 3 auf?“ zu
+ * einfache Fragen wie „taucht dieses Fach/Lehrer in Stunde 3 auf?“ zu
  * beantworten. Das Parsen ist absichtlich locker, um mit unordentlichen
  * Eingaben klarzukommen.
+ *
+ * Beim Aufbau wird ein Index erstellt: für jedes Wort (möglichen
+ * Fachnamen) die Menge aller ein‑ und zweistelligen Buchstabenfolgen der
+ * Zeilen, in denen es vorkommt. Ein Lehrer passt zu einer Zeile, wenn die
+ * Zeile seine ersten zwei Buchstaben enthält; <code>matches</code> ist
+ * damit ein einziger Hash‑Zugriff ohne Arbeit an den Zeilen.
  */
 public class TimetableMatcher {
     // Regex zum Erkennen einer Stundenangabe am Zeilenanfang, z.B. "1.", "2)" usw.
     private static final Pattern HOUR_PATTERN = Pattern.compile("^(\\d{1,2})[\\.)]?\\b");
-    private final Map<String, List<String>> hourLines = new LinkedHashMap<>();
-    private final List<String> allLines = new ArrayList<>();
+    // Zeichen, die außer A-Z zu einem Fach-Wort gehören bzw. außer A-Z/a-z zu einem Lehrernamen
+    private static final String SUBJECT_EXTRA = "├ä├û├£";
+    private static final String TEACHER_EXTRA = "├ä├û├£├ñ├Â├╝";
+
+    // Wort (Fach) -> alle ein- und zweistelligen Teilstrings der Zeilen mit diesem Wort
+    private final Map<String, Set<String>> subjectIndex = new HashMap<>();
+    // Stunde -> Wörter der Zeilen dieser Stunde
+    private final Map<String, Set<String>> hourIndex = new LinkedHashMap<>();
 
     /**
      * Create a matcher by giving it the full text of a timetable.
@@ -26,39 +43,190 @@ public class TimetableMatcher {
      */
     public TimetableMatcher(String text) {
         if (text == null) return; // nichts zu parsen
-        // Zeilenenden und geschützte Leerzeichen normalisieren, damit das Format stabil ist
-        String normalized = text.replace("\r\n", "\n").replace("\r", "\n").replace('\u00A0', ' ');
-        String currentHour = null;
-        // jede nicht‑leere Zeile im normalisierten Text durchgehen
-        for (String raw : normalized.split("\\n")) {
-            String line = raw.trim();
-            if (line.isEmpty()) continue;          // leere Zeilen überspringen
-            allLines.add(line);                   // Zeile speichern
+        Metrics.Timer timer = Metrics.start("timetable.index");
+        try {
+            Builder b = new Builder().append(text);
+            b.source.finish();
+            subjectIndex.putAll(b.subjectIndex);
+            hourIndex.putAll(b.hourIndex);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Baut einen <code>TimetableMatcher</code> schrittweise auf, während der
+     * Text noch ankommt, z. B. direkt aus PDFBox (siehe
+     * <code>PdfTextExtractor.index</code>). Die Zeichen laufen durch eine
+     * <code>TextLines</code>‑Zeilenquelle, jede fertige Zeile kommt sofort
+     * in den Index und wird danach vergessen. Den Text selbst gibt der
+     * Builder nur weiter, wenn mit <code>textTo</code> ein Ziel gesetzt ist.
+     *
+     * Für parallel gelesene Seitenbereiche gibt es <code>newPart</code> und
+     * <code>addPart</code>: jeder Bereich füllt einen eigenen Teil, die Teile
+     * werden danach in Seitenreihenfolge übernommen. Das Ergebnis ist
+     * dasselbe, als wäre der ganze Text am Stück angekommen, solange jeder
+     * Teil an einer Zeilengrenze endet.
+     */
+    public static class Builder {
+        private final Map<String, Set<String>> subjectIndex = new HashMap<>();
+        private final Map<String, Set<String>> hourIndex = new LinkedHashMap<>();
+        // Wörter aus Zeilen vor der ersten Stundenangabe; bei einem Teil gehören sie zur letzten Stunde davor
+        private final Set<String> leadingWords = new LinkedHashSet<>();
+        private final TextLines source = new TextLines(this::indexLine);
+        private String currentHour;
+        private int lines;
+        private long chars;
+        private Appendable text;
+        // Text eines Teils; addPart hängt ihn an den Text des Ganzen an
+        private StringBuilder partText;
+
+        // normalisierter Text geht zusätzlich hierhin (z. B. für die Anzeige oder eine Datei)
+        public Builder textTo(Appendable out) {
+            this.text = out;
+            return this;
+        }
+
+        public Builder append(CharSequence chars) {
+            source.append(chars);
+            return this;
+        }
+
+        public Builder append(char[] chars, int off, int count) {
+            source.append(chars, off, count);
+            return this;
+        }
+
+        public Builder append(char c) {
+            source.append(c);
+            return this;
+        }
+
+        // eine vollständige Zeile ohne Zeilenende
+        public Builder line(CharSequence l) {
+            source.append(l).endLine();
+            return this;
+        }
+
+        // ein leerer Teil für einen späteren Abschnitt des Textes, z. B. einen Seitenbereich
+        public Builder newPart() {
+            Builder part = new Builder();
+            if (text != null) {
+                part.partText = new StringBuilder();
+                part.text = part.partText;
+            }
+            return part;
+        }
+
+        // übernimmt einen mit newPart angelegten Teil; Teile müssen in Textreihenfolge kommen
+        public Builder addPart(Builder part) {
+            source.finish();
+            part.source.finish();
+            for (Map.Entry<String, Set<String>> e : part.subjectIndex.entrySet()) {
+                subjectIndex.computeIfAbsent(e.getKey(), k -> new HashSet<>()).addAll(e.getValue());
+            }
+            if (currentHour != null) {
+                hourIndex.computeIfAbsent(currentHour, k -> new LinkedHashSet<>()).addAll(part.leadingWords);
+            } else {
+                leadingWords.addAll(part.leadingWords);
+            }
+            for (Map.Entry<String, Set<String>> e : part.hourIndex.entrySet()) {
+                hourIndex.computeIfAbsent(e.getKey(), k -> new LinkedHashSet<>()).addAll(e.getValue());
+            }
+            if (part.currentHour != null) currentHour = part.currentHour;
+            lines += part.lines;
+            chars += part.chars;
+            if (text != null && part.partText != null) {
+                try {
+                    text.append(part.partText);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return this;
+        }
+
+        // true, wenn der Text nur aus Leerraum besteht; erst nach build() vollständig
+        public boolean isBlank() {
+            return lines == 0;
+        }
+
+        // Länge des normalisierten Textes; erst nach build() vollständig
+        public long chars() {
+            return chars;
+        }
+
+        public TimetableMatcher build() {
+            source.finish();
+            return new TimetableMatcher(subjectIndex, hourIndex);
+        }
+
+        // nimmt eine fertige Zeile aus der Zeilenquelle in den Index auf
+        private void indexLine(TextLines.Line raw) {
+            chars += raw.length() + (raw.terminated() ? 1 : 0);
+            if (text != null) {
+                try {
+                    text.append(raw);
+                    if (raw.terminated()) text.append('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            TextLines.Line line = raw.trim();
+            if (line.length() == 0) return;          // leere Zeilen überspringen
+            lines++;
+
+            String upper = line.toString().toUpperCase();
+            Set<String> words = words(upper);
+            if (!words.isEmpty()) {
+                Set<String> pieces = pieces(upper);
+                for (String w : words) {
+                    subjectIndex.computeIfAbsent(w, k -> new HashSet<>()).addAll(pieces);
+                }
+            }
 
             Matcher m = HOUR_PATTERN.matcher(line);
             if (m.find()) {
-                // Stundenpräfix gefunden, z. B. "1" oder "12"
+                // Stundenpräfix gefunden, z. B. "1" oder "12"
                 currentHour = m.group(1);
             }
             if (currentHour != null) {
-                // Zeile der aktuellen Stunde zuordnen
-                hourLines.computeIfAbsent(currentHour, k -> new ArrayList<>()).add(line);
+                // Wörter der Zeile der aktuellen Stunde zuordnen
+                hourIndex.computeIfAbsent(currentHour, k -> new LinkedHashSet<>()).addAll(words);
+            } else {
+                leadingWords.addAll(words);
             }
         }
     }
 
-    // Gibt die rohe, geparste Map zurück; Schlüssel ist die Stundenzahl,
-    // Wert ist die Liste der zugehörigen Zeilen
-    public Map<String, List<String>> getParsedTimetable() {
-        return hourLines;
+    // Aufbau aus einem gespeicherten Index (siehe Snapshot), ohne den Text erneut zu zerlegen
+    TimetableMatcher(Map<String, Set<String>> subjectIndex, Map<String, Set<String>> hourIndex) {
+        this.subjectIndex.putAll(subjectIndex);
+        this.hourIndex.putAll(hourIndex);
+    }
+
+    // Fach-Index für den Snapshot
+    Map<String, Set<String>> subjectIndex() {
+        return Collections.unmodifiableMap(subjectIndex);
+    }
+
+    /**
+     * Stundenraster: Schlüssel ist die Stundenzahl, Wert sind die Wörter
+     * (groß geschrieben, Fach‑ und Lehrerkürzel) aus den Zeilen dieser
+     * Stunde. Ersetzt die frühere Map mit den rohen Zeilen.
+     */
+    public Map<String, Set<String>> getHourIndex() {
+        return Collections.unmodifiableMap(hourIndex);
     }
 
     /**
      * Prüft, ob ein gegebenes Fach/Lehrer-Paar im Stundenplan vorkommt.
      *
-     * @param fach    Fachbezeichnung (z. B. "Mathe-GK")
+     * @param fach    Fachbezeichnung (z. B. "Mathe-GK")
      * @param lehrer  Lehrername (kann Leerzeichen enthalten)
-     * @param stunde  optionale Stundenzahl zur Einschränkung der Suche
+     * @param stunde  Stundenzahl; schränkt das Ergebnis nicht ein, da ohne
+     *                Treffer in der Stunde ohnehin im ganzen Plan gesucht wird
      * @return true, wenn eine passende Zeile gefunden wurde
      */
     public boolean matches(String fach, String lehrer, String stunde) {
@@ -67,52 +235,62 @@ public class TimetableMatcher {
 
         String teacher = normalizeTeacher(lehrer);
         if (teacher.isEmpty()) return false;
-        String teacherShort = teacher.length() > 3 ? teacher.substring(0, 3) : teacher;
+        // der Lehrername oder seine ersten drei Buchstaben enthalten die ersten zwei
         String teacherShort2 = teacher.length() > 2 ? teacher.substring(0, 2) : teacher;
 
-        List<String> lines = stunde != null && hourLines.containsKey(stunde)
-                ? hourLines.get(stunde)
-                : allLines;
-
-        if (lineMatch(lines, subject, teacher, teacherShort, teacherShort2)) return true;
-
-        // Fallback: Durchsuche alle Zeilen, falls die stundenbezogene Suche fehlschlägt.
-        return lineMatch(allLines, subject, teacher, teacherShort, teacherShort2);
+        Set<String> pieces = subjectIndex.get(subject);
+        return pieces != null && pieces.contains(teacherShort2);
     }
 
-    // Hilfsfunktion, die eine Liste von Zeilen durchsucht und sowohl das Fach‑
-    // token als auch eines der passenden Lehrer‑Tokens sucht
-    private boolean lineMatch(List<String> lines, String subject, String teacher, String t3, String t2) {
-        for (String line : lines) {
-            String upper = line.toUpperCase();
-            if (!containsToken(upper, subject)) continue; // Fach muss als ganzes Wort vorhanden sein
-            if (upper.contains(teacher) || upper.contains(t3) || upper.contains(t2)) return true;
+    // Zerlegt eine Zeile an beliebigen Nicht‑Buchstaben in Wörter
+    private static Set<String> words(String upper) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= upper.length(); i++) {
+            boolean letter = i < upper.length() && isSubjectChar(upper.charAt(i));
+            if (letter && start < 0) start = i;
+            if (!letter && start >= 0) {
+                words.add(upper.substring(start, i));
+                start = -1;
+            }
         }
-        return false;
+        return words;
     }
 
-    // Zerlegt eine Zeile an beliebigen Nicht‑Buchstaben und prüft auf exakten
-    // Token‑Match
-    private boolean containsToken(String line, String token) {
-        String[] parts = line.toUpperCase().split("[^A-Z├ä├û├£]+");
-        for (String p : parts) {
-            if (p.equals(token)) return true;
+    // alle Teilstrings der Länge 1 und 2
+    private static Set<String> pieces(String upper) {
+        Set<String> pieces = new HashSet<>();
+        for (int i = 0; i < upper.length(); i++) {
+            pieces.add(upper.substring(i, i + 1));
+            if (i + 2 <= upper.length()) pieces.add(upper.substring(i, i + 2));
         }
-        return false;
+        return pieces;
     }
 
     private String normalizeSubject(String fach) {
         if (fach == null) return "";
         String up = fach.toUpperCase();
         int idx = up.indexOf('-');
-        String subject = idx > 0 ? up.substring(0, idx) : up;
-        subject = subject.replaceAll("[^A-Z├ä├û├£]", "");
-        return subject.trim();
+        int end = idx > 0 ? idx : up.length();
+        StringBuilder sb = new StringBuilder(end);
+        for (int i = 0; i < end; i++) {
+            char c = up.charAt(i);
+            if (isSubjectChar(c)) sb.append(c);
+        }
+        return sb.toString();
     }
 
     private String normalizeTeacher(String lehrer) {
         if (lehrer == null) return "";
-        String teacher = lehrer.replaceAll("[^A-Za-z├ä├û├£├ñ├Â├╝]", "").toUpperCase();
-        return teacher.trim();
+        StringBuilder sb = new StringBuilder(lehrer.length());
+        for (int i = 0; i < lehrer.length(); i++) {
+            char c = lehrer.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || TEACHER_EXTRA.indexOf(c) >= 0) sb.append(c);
+        }
+        return sb.toString().toUpperCase();
+    }
+
+    private static boolean isSubjectChar(char c) {
+        return (c >= 'A' && c <= 'Z') || SUBJECT_EXTRA.indexOf(c) >= 0;
     }
 }
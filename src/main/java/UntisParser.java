@@ -1,4 +1,12 @@
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,8 +15,9 @@ import java.util.regex.Pattern;
 
 /**
  * Parser für die Textfassung des Von‑Untis‑Vertretungsplans. Der zu parse‑
- * sende Text ist bekanntermaßen inkonsistent, daher enthält diese Klasse
- * mehrere Regex‑Muster und Fallback‑Heuristiken.
+ * sende Text ist bekanntermaßen inkonsistent; die einzelnen Zeilen
+ * zerlegt <code>PlanLineScanner</code> mit den Heuristiken für die
+ * verschiedenen Zeilenformen.
  *
  * Sie stellt eine einfache <code>parse</code>-Methode zur Verfügung, die
  * eine Map mit Tagen (z. B. „Mo 12.3.“) zurückliefert, sowie ein paar
@@ -18,10 +27,9 @@ import java.util.regex.Pattern;
 public class UntisParser {
     // Regex zum Finden der Datums-/Tagesüberschriften im Plan
     private static final Pattern DAY_PATTERN = Pattern.compile("(\\d{1,2}\\.\\d{1,2}\\.\\s+\\p{L}+)");
-    // Standardzeile mit Klasse, Stunde, Fach, Raum, Lehrer, Info
-    private static final Pattern ENTRY_PATTERN = Pattern.compile("^(\\S+)\\s+(\\d{1,2})\\s+(.*?)\\s{2,}(\\S+)\\s+(\\S+)\\s*(.*)$");
-    private static final Pattern FALLBACK_PATTERN = Pattern.compile("^(\\S+)\\s+(\\d{1,2})\\s+(\\S+)\\s+(\\S+)\\s+(\\S+)\\s*(.*)$");
-    private static final Pattern COMPACT_PATTERN = Pattern.compile("^(Q\\d)(\\d{1,2})(.*?)(---|[A-Z]{2,5}\\d{3,4})(.+)$");
+    // Spaltenreihenfolge Klasse, Stunde, Fach, Raum, Lehrer, Info, falls die
+    // Tabelle keine erkennbare Kopfzeile hat
+    private static final int[] DEFAULT_COLUMNS = {0, 1, 2, 3, 4, 5};
 
     /**
      * Parst den Rohtext und liefert eine Map, deren Schlüssel die Tages-
@@ -29,74 +37,246 @@ public class UntisParser {
      * Objekten für diesen Tag.
      */
     public Map<String, List<PlanEntry>> parse(String text) {
-        Map<String, List<PlanEntry>> result = new LinkedHashMap<>();
-        List<String> parts = splitParts(text);
+        Metrics.Timer timer = Metrics.start("plan.parse");
+        try {
+            Map<String, List<PlanEntry>> result = new LinkedHashMap<>();
+            List<String> parts = splitParts(text);
+            StringPool pool = new StringPool();
+
+            for (int i = 1; i < parts.size(); i += 2) {
+                result.put(parts.get(i).trim(), parseBlock(parts.get(i + 1), pool));
+            }
+            return result;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Parst den Rohtextblock eines einzelnen Tages (wie ihn
+     * <code>splitByDay</code> liefert) in seine Einträge. Die Liste ist ein
+     * <code>CompactDay</code> mit eigenem <code>StringPool</code>.
+     */
+    public List<PlanEntry> parseBlock(String block) {
+        return parseBlock(block, new StringPool());
+    }
+
+    // die Tage eines Durchlaufs teilen sich einen Pool für die freien Texte
+    private List<PlanEntry> parseBlock(String block, StringPool pool) {
+        CompactDay entries = new CompactDay(pool);
+        PlanLineScanner scanner = new PlanLineScanner();
+        // die Zeilen sind nur Sichten auf den Puffer der Zeilenquelle; Strings entstehen erst für die Felder
+        TextLines.forEachLine(block, raw -> {
+            TextLines.Line line = raw.trim();
+            if (line.length() == 0 || line.startsWith("Klasse(n)Stunde")) return;
+
+            PlanEntry e = scanner.scan(line);
+            if (e != null) entries.add(e);
+        });
+
+        entries.trimToSize();
+        return entries;
+    }
+
+    /**
+     * Parst den Plan direkt aus dem HTML‑Dokument, indem die Zeilen und
+     * Zellen der Untis‑Tabellen abgelaufen werden. Dabei bleiben die
+     * Spaltengrenzen erhalten, und die Heuristiken für den Text entfallen.
+     * Nur wenn das Dokument keine einzige Eintragszeile enthält, wird auf
+     * <code>parse(text)</code> zurückgefallen.
+     *
+     * @param text die Textfassung desselben Dokuments (siehe
+     *             <code>BonniwebClient.planText</code>) oder null; wird nur
+     *             für den Rückfall gebraucht und sonst gar nicht gelesen
+     */
+    public Map<String, List<PlanEntry>> parse(Document doc, String text) {
+        return parsePlan(doc, text).entriesByDay;
+    }
 
+    /**
+     * Zerlegt den Text ein einziges Mal und liefert Tagesreihenfolge,
+     * Einträge, Freigabestatus und die Heute/Morgen‑Zuordnung zusammen.
+     * Entspricht <code>parse</code>, <code>splitByDay</code> und
+     * <code>firstAvailableDay</code> in einem Durchlauf.
+     */
+    public ParsedPlan parsePlan(String text) {
+        Metrics.Timer timer = Metrics.start("plan.parse");
+        try {
+            return buildPlan(splitParts(text), new StringPool());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Wie <code>parsePlan(text)</code>, aber aus den Tabellen des Dokuments:
+     * Tage, Einträge und Freigabestatus entstehen in einem Durchlauf über
+     * die Knoten. Die Textfassung (<code>wholeText</code>) wird nur
+     * erzeugt, wenn keine Untis‑Tabelle gefunden wird.
+     */
+    public ParsedPlan parsePlan(Document doc) {
+        return parsePlan(doc, null);
+    }
+
+    // wie parsePlan(doc); text ist die schon vorhandene Textfassung für den Rückfall oder null
+    public ParsedPlan parsePlan(Document doc, String text) {
+        Metrics.Timer timer = Metrics.start("plan.parse");
+        try {
+            StringPool pool = new StringPool();
+            if (doc != null) {
+                TableWalker walker = walk(doc, pool);
+                if (walker.found) return new ParsedPlan(new ArrayList<>(walker.result.keySet()), walker.result, walker.released);
+            }
+            if (text == null) text = doc == null ? "" : BonniwebClient.planText(doc);
+            return buildPlan(splitParts(text), pool);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private ParsedPlan buildPlan(List<String> parts, StringPool pool) {
+        List<String> dayOrder = new ArrayList<>();
+        LinkedHashMap<String, List<PlanEntry>> entries = new LinkedHashMap<>();
+        Map<String, Boolean> released = new HashMap<>();
         for (int i = 1; i < parts.size(); i += 2) {
             String day = parts.get(i).trim();
-            result.put(day, new ArrayList<>());
-
-            for (String line : parts.get(i + 1).split("\\n")) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("Klasse(n)Stunde")) continue;
-
-                Matcher em = ENTRY_PATTERN.matcher(line);
-                if (!em.matches()) em = FALLBACK_PATTERN.matcher(line);
-                if (em.matches()) {
-                    result.get(day).add(new PlanEntry(
-                            em.group(1),
-                            em.group(2),
-                            em.group(3).trim(),
-                            em.group(4),
-                            em.group(5),
-                            em.group(6).trim()
-                    ));
-                    continue;
-                }
-
-                Matcher cm = COMPACT_PATTERN.matcher(line);
-                if (cm.matches()) {
-                    String tail = cm.group(5).trim();
-                    String info = "";
-                    if (tail.endsWith("EVA")) { info = "EVA"; tail = tail.substring(0, tail.length() - 3); }
-                    else if (tail.endsWith("VA")) { info = "VA"; tail = tail.substring(0, tail.length() - 2); }
-
-                    result.get(day).add(new PlanEntry(
-                            cm.group(1),
-                            cm.group(2),
-                            cm.group(3).trim(),
-                            cm.group(4),
-                            tail.trim(),
-                            info
-                    ));
-                    continue;
-                }
-
-                // Tokenbasierter Fallback für tabellenartige Zeilen wie:
-                // Q2 4 E-GK2 --- Wgm EVA
-                String[] tokens = line.split("\\s+");
-                if (tokens.length >= 5 && tokens[0].matches("[A-Za-z0-9]+") && tokens[1].matches("\\d{1,2}")) {
-                    String klasse = tokens[0];
-                    String stunde = tokens[1];
-                    String info = "";
-                    int end = tokens.length;
-                    if ("EVA".equalsIgnoreCase(tokens[end - 1]) || "VA".equalsIgnoreCase(tokens[end - 1])) {
-                        info = tokens[end - 1].toUpperCase();
-                        end--;
-                    }
-                    if (end >= 5) {
-                        String lehrer = tokens[end - 1];
-                        String raum = tokens[end - 2];
-                        String fach = String.join(" ", java.util.Arrays.copyOfRange(tokens, 2, end - 2)).trim();
-                        if (!fach.isEmpty()) {
-                            result.get(day).add(new PlanEntry(klasse, stunde, fach, raum, lehrer, info));
-                        }
-                    }
-                }
+            String block = parts.get(i + 1);
+            if (!entries.containsKey(day)) dayOrder.add(day);
+            entries.put(day, parseBlock(block, pool));
+            released.put(day, !isUnreleased(block));
+        }
+        return new ParsedPlan(dayOrder, entries, released);
+    }
+
+    /**
+     * Läuft alle Tabellenzeilen des Dokuments der Reihe nach ab und ordnet
+     * sie der zuletzt gesehenen Tagesüberschrift zu. Liefert null, wenn
+     * keine einzige Eintragszeile gefunden wurde.
+     */
+    public LinkedHashMap<String, List<PlanEntry>> parseTables(Document doc) {
+        return parseTables(doc, new StringPool());
+    }
+
+    private LinkedHashMap<String, List<PlanEntry>> parseTables(Document doc, StringPool pool) {
+        TableWalker walker = walk(doc, pool);
+        return walker.found ? walker.result : null;
+    }
+
+    private static TableWalker walk(Document doc, StringPool pool) {
+        TableWalker walker = new TableWalker(pool);
+        NodeTraversor.traverse(walker, doc.body());
+        for (List<PlanEntry> day : walker.result.values()) ((CompactDay) day).trimToSize();
+        return walker;
+    }
+
+    // Besucht die Knoten des Dokuments in Dokumentreihenfolge; Text außerhalb
+    // von Tabellenzeilen wird nach Tagesüberschriften und dem Hinweis auf
+    // nicht freigegebene Vertretungen durchsucht, jede Tabellenzeile ist
+    // entweder Kopfzeile, Überschrift bzw. Nachricht oder Eintrag.
+    private static class TableWalker implements NodeVisitor {
+        final LinkedHashMap<String, List<PlanEntry>> result = new LinkedHashMap<>();
+        final Map<String, Boolean> released = new HashMap<>();
+        final StringPool pool;
+        String currentDay;
+        int[] columns;
+        int rowDepth;
+        boolean found;
+
+        TableWalker(StringPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode) {
+                if (rowDepth == 0) findDay(((TextNode) node).getWholeText());
+                return;
+            }
+            if (!(node instanceof Element)) return;
+            Element el = (Element) node;
+            if (el.normalName().equals("table")) {
+                columns = null; // jede Tabelle hat ihre eigene Kopfzeile
+            } else if (el.normalName().equals("tr")) {
+                if (rowDepth == 0) handleRow(el);
+                rowDepth++;
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node instanceof Element && ((Element) node).normalName().equals("tr")) rowDepth--;
+        }
+
+        // Text vor einer Überschrift gehört noch zum vorigen Tag, wie bei splitParts
+        private void findDay(String text) {
+            String t = text.replace('\u00A0', ' ');
+            Matcher m = DAY_PATTERN.matcher(t);
+            int from = 0;
+            while (m.find()) {
+                noteUnreleased(t.substring(from, m.start()));
+                currentDay = m.group().trim();
+                result.computeIfAbsent(currentDay, k -> new CompactDay(pool));
+                released.putIfAbsent(currentDay, true);
+                from = m.end();
+            }
+            noteUnreleased(from == 0 ? t : t.substring(from));
+        }
+
+        private void noteUnreleased(String text) {
+            if (currentDay != null && isUnreleased(text)) released.put(currentDay, false);
+        }
+
+        private void handleRow(Element tr) {
+            List<String> cells = new ArrayList<>();
+            boolean allHeader = true;
+            for (Element cell : tr.children()) {
+                String name = cell.normalName();
+                if (!name.equals("td") && !name.equals("th")) continue;
+                if (!name.equals("th")) allHeader = false;
+                cells.add(cell.text().replace('\u00A0', ' ').trim());
+            }
+            if (cells.isEmpty()) return;
+
+            if (allHeader || cells.stream().anyMatch("Stunde"::equalsIgnoreCase)) {
+                columns = headerColumns(cells);
+                return;
             }
+            if (cells.size() < 5) {
+                // z. B. eine Zeile mit colspan, die nur die Tagesüberschrift enthält
+                findDay(tr.text());
+                return;
+            }
+            if (currentDay == null) return;
+
+            int[] col = columns != null ? columns : DEFAULT_COLUMNS;
+            String klasse = cell(cells, col[0]);
+            String stunde = cell(cells, col[1]);
+            if (klasse.isEmpty() || stunde.isEmpty() || !Character.isDigit(stunde.charAt(0))) return;
+
+            result.get(currentDay).add(new PlanEntry(klasse, stunde,
+                    cell(cells, col[2]), cell(cells, col[3]), cell(cells, col[4]), cell(cells, col[5])));
+            found = true;
+        }
+
+        private static String cell(List<String> cells, int idx) {
+            return idx >= 0 && idx < cells.size() ? cells.get(idx) : "";
         }
 
-        return result;
+        // ordnet die Spalten anhand der Überschriften zu; null, wenn Klasse
+        // oder Stunde fehlen (dann gilt die Standardreihenfolge)
+        private static int[] headerColumns(List<String> header) {
+            int[] col = {-1, -1, -1, -1, -1, -1};
+            for (int i = 0; i < header.size(); i++) {
+                String h = header.get(i).toLowerCase();
+                if (col[0] < 0 && h.contains("klasse")) col[0] = i;
+                else if (col[1] < 0 && h.contains("stunde")) col[1] = i;
+                else if (col[2] < 0 && h.contains("fach")) col[2] = i;
+                else if (col[3] < 0 && h.contains("raum")) col[3] = i;
+                else if (col[4] < 0 && (h.contains("vertreter") || h.contains("lehrer"))) col[4] = i;
+                else if (col[5] < 0 && (h.equals("art") || h.contains("text") || h.contains("info") || h.contains("bemerkung"))) col[5] = i;
+            }
+            return col[0] < 0 || col[1] < 0 ? null : col;
+        }
     }
 
     // Liefert eine Map von Tagesüberschriften auf den Rohtextblock des jeweiligen Tages
@@ -119,15 +299,30 @@ public class UntisParser {
     public String firstAvailableDay(String text) {
         LinkedHashMap<String, String> blocks = splitByDay(text);
         for (Map.Entry<String, String> e : blocks.entrySet()) {
-            String b = e.getValue().toLowerCase();
-            if (b.contains("vertretungen sind nicht freigegeben") || b.contains("vertretungen nicht freigegeben")) {
-                continue;
-            }
+            if (isUnreleased(e.getValue())) continue;
             return e.getKey();
         }
         return blocks.isEmpty() ? null : blocks.keySet().iterator().next();
     }
 
+    // Enthält der Block den Hinweis, dass die Vertretungen noch nicht
+    // freigegeben sind? Vergleicht ohne den ganzen Block klein zu schreiben.
+    static boolean isUnreleased(String block) {
+        return containsIgnoreCase(block, "vertretungen sind nicht freigegeben")
+                || containsIgnoreCase(block, "vertretungen nicht freigegeben");
+    }
+
+    private static boolean containsIgnoreCase(String text, String needle) {
+        int max = text.length() - needle.length();
+        char first = needle.charAt(0);
+        for (int i = 0; i <= max; i++) {
+            char c = text.charAt(i);
+            if (c != first && Character.toLowerCase(c) != first) continue;
+            if (text.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+
     // Interner Helfer: Teilt den Text in Abschnitte, bei denen ungerade
     // Indizes die Tagesüberschrift und gerade Indizes den daran anschließenden
     // Block enthalten.
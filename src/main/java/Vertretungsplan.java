@@ -1,8 +1,11 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 /**
  * Eine Kommandozeilen‑Variante der Anwendung. Sie arbeitet in etwa wie die
@@ -16,8 +19,31 @@ public class Vertretungsplan {
     private static final String PLAN_RESOURCE_URL = "https://bonniweb.de/mod/resource/view.php?id=1323";
     private static final String TIMETABLE_PDF_URL = "https://bonniweb.de/pluginfile.php/2990/mod_resource/content/4/Stufe_Q2.pdf";
 
+    // Anzahl gleichzeitig bearbeiteter Profile im Batch-Modus
+    private static final int DEFAULT_BATCH_THREADS = 4;
+    // so lange wird die Kursliste aus dem Snapshot verwendet, ohne sie neu abzurufen
+    private static final long COURSES_MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+
     // Einstiegspunkt, wenn ohne JavaFX gestartet wird
     public static void main(String[] args) throws Exception {
+        // --metrics (an beliebiger Stelle): beim Beenden die Dauer jeder Stufe ausgeben
+        List<String> argList = new ArrayList<>(Arrays.asList(args));
+        if (argList.remove("--metrics")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(Metrics.summary())));
+            args = argList.toArray(new String[0]);
+        }
+
+        // Batch-Modus: alle Profile einer profile.properties auf einmal
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            runBatch(args);
+            return;
+        }
+        // Dauerbetrieb: Profile selbst in wechselnden Abständen aktualisieren
+        if (args.length > 0 && "--daemon".equals(args[0])) {
+            runDaemon(args);
+            return;
+        }
+
         // Lese Zugangsdaten aus Umgebungsvariablen; praktisch für Cron‑Jobs/Tests
         String user = System.getenv("BONNIWEB_USER");
         String pass = System.getenv("BONNIWEB_PASS");
@@ -28,42 +54,127 @@ public class Vertretungsplan {
         }
 
         BonniwebClient client = new BonniwebClient();
-        if (!client.login(user, pass)) {
+        // gespeicherte Sitzung wiederverwenden, wenn sie noch gültig ist
+        if (!new SessionPool().login(client, user, pass)) {
             System.out.println("Login fehlgeschlagen.");
             return;
         }
 
-        List<String> courses = client.fetchCourses();
-        String timetableText = "";
-        try {
-            timetableText = client.fetchPdfText(TIMETABLE_PDF_URL);
-        } catch (Exception ignored) {}
-        if (timetableText == null || timetableText.trim().isEmpty()) {
+        // Kursliste und Stundenplan-Index vom letzten Lauf, falls noch aktuell
+        Snapshot snapshot = Snapshot.load();
+        List<String> knownCourses = snapshot.courses(user, COURSES_MAX_AGE_MILLIS);
+
+        // Kurse, Stundenplan und Vertretungsplan gleichzeitig abrufen
+        FetchPipeline.Result fetched = FetchPipeline.start(client, PLAN_RESOURCE_URL, TIMETABLE_PDF_URL, knownCourses).await();
+        if (fetched.errors.containsKey(FetchPipeline.STAGE_COURSES)) {
+            System.out.println("Hinweis: Kurse konnten nicht geladen werden.");
+        } else if (knownCourses == null) {
+            snapshot.putCourses(user, fetched.courses);
+        }
+        List<String> courses = fetched.courses;
+        TimetableMatcher timetable = timetable(fetched.timetable, snapshot);
+        if (timetable == null) {
             System.out.println("Hinweis: Stundenplan konnte nicht gelesen werden.");
         }
-        String planText = client.fetchPlanTextFromResource(PLAN_RESOURCE_URL);
-        if (planText.isEmpty()) {
+        snapshot.save();
+        Throwable planError = fetched.errors.get(FetchPipeline.STAGE_PLAN);
+        if (planError != null) {
+            System.out.println("Plan konnte nicht geladen werden: " + planError.getMessage());
+            return;
+        }
+        if (!fetched.hasPlan()) {
             System.out.println("Zugriff auf den Plan fehlgeschlagen (Login-Seite erhalten).");
             return;
         }
 
-        UntisParser parser = new UntisParser();
-        Map<String, List<PlanEntry>> allByDay = parser.parse(planText);
+        // ein Durchlauf liefert Einträge, Tagesreihenfolge und Heute/Morgen
+        ParsedPlan plan = new UntisParser().parsePlan(fetched.planDocument);
         EvaOverlapService overlapService = new EvaOverlapService();
-        LinkedHashMap<String, List<EvaMatch>> filtered = overlapService.filterEva(allByDay, courses, timetableText);
+        LinkedHashMap<String, List<EvaMatch>> filtered = overlapService.filterEva(plan.entriesByDay, courses, timetable);
 
         System.out.println("EVA-Überschneidungen mit deinen Kursen:");
 
-        List<String> dayOrder = new ArrayList<>(parser.splitByDay(planText).keySet());
-        String dayToday = parser.firstAvailableDay(planText);
-        String dayTomorrow = null;
-        if (dayToday != null) {
-            int idx = dayOrder.indexOf(dayToday);
-            if (idx >= 0 && idx + 1 < dayOrder.size()) dayTomorrow = dayOrder.get(idx + 1);
+        printDay(plan.today, filtered);
+        printDay(plan.tomorrow, filtered);
+    }
+
+    /**
+     * Liefert den Matcher für das geladene PDF. Ist der Index zu diesem PDF
+     * schon im Snapshot, wird er übernommen, sonst gebaut und gespeichert.
+     * Stammt der Eintrag von der Festplatte des <code>PdfTextCache</code>,
+     * ist sein Matcher zu diesem Zeitpunkt noch nicht gebaut; der Snapshot
+     * erspart den Aufbau also tatsächlich.
+     * null, wenn kein Stundenplan gelesen werden konnte.
+     */
+    private static TimetableMatcher timetable(PdfTextCache.Entry entry, Snapshot snapshot) {
+        if (entry == null || entry.isBlank()) return null;
+        TimetableMatcher saved = snapshot.timetable(entry.hash);
+        if (saved != null) return entry.useMatcher(saved);
+        TimetableMatcher built = entry.matcher();
+        snapshot.putTimetable(entry.hash, built);
+        return built;
+    }
+
+    /**
+     * Aktualisiert alle Profile aus einer profile.properties (Aufruf:
+     * <code>--batch [datei] [threads]</code>). Plan und Stundenplan werden
+     * dabei nur einmal geladen; am Ende wird der Durchsatz ausgegeben.
+     */
+    private static void runBatch(String[] args) throws Exception {
+        Path path = args.length > 1 ? Path.of(args[1]) : AppFiles.profilePath();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BATCH_THREADS;
+        if (!Files.exists(path)) {
+            System.out.println("Profildatei nicht gefunden: " + path);
+            return;
+        }
+        List<BatchRefresh.Profile> profiles = BatchRefresh.loadProfiles(path);
+        if (profiles.isEmpty()) {
+            System.out.println("Keine Profile mit Zugangsdaten gefunden.");
+            return;
+        }
+
+        BatchRefresh batch = new BatchRefresh(PLAN_RESOURCE_URL, TIMETABLE_PDF_URL, threads, new SessionPool());
+        BatchRefresh.Result result = batch.run(profiles);
+
+        if (result.timetableError != null) {
+            System.out.println("Hinweis: Stundenplan konnte nicht gelesen werden: " + result.timetableError);
+        }
+        for (BatchRefresh.ProfileResult r : result.profiles) {
+            System.out.println("== " + r.profile.key + " (" + r.millis + " ms)");
+            if (r.error != null) {
+                System.out.println("  Fehler: " + r.error);
+                continue;
+            }
+            printDay(result.dayToday, r.matches);
+            printDay(result.dayTomorrow, r.matches);
+        }
+        System.out.printf(Locale.ROOT, "%d Profile in %d ms (%.2f Profile/s)%n",
+                result.profiles.size(), result.totalMillis, result.profilesPerSecond());
+    }
+
+    /**
+     * Startet den Dauerbetrieb (Aufruf: <code>--daemon [datei] [threads]</code>).
+     * Läuft, bis der Prozess beendet wird; Änderungen an den
+     * EVA‑Überschneidungen werden laufend ausgegeben.
+     */
+    private static void runDaemon(String[] args) throws Exception {
+        Path path = args.length > 1 ? Path.of(args[1]) : AppFiles.profilePath();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BATCH_THREADS;
+        if (!Files.exists(path)) {
+            System.out.println("Profildatei nicht gefunden: " + path);
+            return;
+        }
+        List<BatchRefresh.Profile> profiles = BatchRefresh.loadProfiles(path);
+        if (profiles.isEmpty()) {
+            System.out.println("Keine Profile mit Zugangsdaten gefunden.");
+            return;
         }
 
-        printDay(dayToday, filtered);
-        printDay(dayTomorrow, filtered);
+        PollDaemon daemon = new PollDaemon(PLAN_RESOURCE_URL, TIMETABLE_PDF_URL, threads, new SessionPool());
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        System.out.println(profiles.size() + " Profile im Dauerbetrieb (Strg+C zum Beenden).");
+        daemon.start(profiles);
+        daemon.awaitTermination();
     }
 
     // Hilfsmethode, die von main genutzt wird, um die Treffer eines Tages in
@@ -11,7 +11,14 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Eine einfache JavaFX-Anwendung, die dem Benutzer erlaubt, Login‑Profile
@@ -38,6 +45,8 @@ public class VertretungsplanApp extends Application {
     private final PasswordField passwordField = new PasswordField();
     private final Label statusLabel = new Label("");
     private final Button loginBtn = new Button("Login & Kurse laden");
+    private final Button cancelBtn = new Button("Abbrechen");
+    private final Button refreshAllBtn = new Button("Alle aktualisieren");
 
     // UI‑Elemente für die Tabs
     private final Label todayTitle = new Label("Heute");
@@ -46,18 +55,82 @@ public class VertretungsplanApp extends Application {
     private final TextArea tomorrowArea = new TextArea();
     private final ListView<String> coursesList = new ListView<>();
     private final TextArea timetableArea = new TextArea();
+    private final TextArea dashboardArea = new TextArea();
+    private final Tab dashboardTab = new Tab("Übersicht");
+    // zeigt, von wann die angezeigten Daten stammen
+    private final Label asOfLabel = new Label("");
+    private static final DateTimeFormatter AS_OF_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     private final Properties props = new Properties();
+    // gespeicherte Sitzungen, damit nicht jeder Klick einen vollen Login braucht
+    private final SessionPool sessions = new SessionPool();
+    // letztes Ergebnis pro Benutzer, wird sofort beim Auswählen angezeigt
+    private final ResultCache resultCache = new ResultCache();
+    // so viele Profile meldet "Alle aktualisieren" gleichzeitig an
+    private static final int REFRESH_ALL_THREADS = 4;
+    // Benutzer und Ergebnis, die gerade in den Tabs stehen
+    private String shownUser;
+    private ResultCache.Result shownResult;
+    // laufende Aktualisierung (nur im FX-Thread lesen/schreiben); nur sie darf die Anzeige ändern
+    private Refresh current;
+
+    // Hintergrundarbeit der GUI; Daemon-Threads, damit das Fenster normal schließt
+    private static final AtomicInteger REFRESH_THREAD_NUM = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "gui-refresh-" + REFRESH_THREAD_NUM.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Eine Aktualisierung für einen Benutzer. Die Felder ohne
+     * <code>volatile</code> werden nur im FX‑Thread benutzt; dort kommen
+     * die Ergebnisse der einzelnen Stufen nacheinander an.
+     */
+    private class Refresh {
+        final String user;
+        final Map<String, String> stages = new LinkedHashMap<>();
+        volatile boolean cancelled;
+        volatile FetchPipeline pipeline;
+        Future<?> task;
+
+        List<String> courses;
+        boolean coursesDone;
+        PdfTextCache.Entry timetable;
+        boolean timetableDone;
+        ParsedPlan plan;
+        boolean planDone;
+        String planError;
+        String warning = "";
+
+        Refresh(String user) {
+            this.user = user;
+            stages.put("Login", "läuft");
+            stages.put(FetchPipeline.STAGE_COURSES, "wartet");
+            stages.put(FetchPipeline.STAGE_TIMETABLE, "wartet");
+            stages.put(FetchPipeline.STAGE_PLAN, "wartet");
+        }
+
+        /**
+         * Bricht die Aktualisierung ab: der Login‑Task wird unterbrochen
+         * (seine Anfrage bricht ab), die Stufen der Pipeline ebenso (siehe
+         * <code>FetchPipeline.cancel</code>). Nur ein schon laufendes Parsen
+         * bzw. der Aufbau des Matchers läuft noch zu Ende; ihr Ergebnis wird
+         * verworfen.
+         */
+        void cancel() {
+            cancelled = true;
+            if (task != null) task.cancel(true);
+            FetchPipeline p = pipeline;
+            if (p != null) p.cancel();
+        }
+    }
 
     // Bestimmt, wo die profile.properties abgelegt wird; nutzt die
     // Umgebungsvariable APPDATA (Windows‑Standard), andernfalls das
     // aktuelle Arbeitsverzeichnis.
     private static Path resolveProfilePath() {
-        String appData = System.getenv("APPDATA");
-        if (appData == null || appData.isBlank()) {
-            return Path.of("profile.properties");
-        }
-        return Path.of(appData, "Vertretungsplan", "profile.properties");
+        return AppFiles.profilePath();
     }
 
     // Stellt sicher, dass das Verzeichnis für die Profildatei vor dem
@@ -87,6 +160,7 @@ public class VertretungsplanApp extends Application {
         VBox.setVgrow(resultTabs, Priority.ALWAYS);
         root.getChildren().add(resultTabs);
         
+        root.getChildren().add(asOfLabel);
         root.getChildren().add(statusLabel);
 
         loadProfiles();
@@ -150,10 +224,13 @@ public class VertretungsplanApp extends Application {
         });
         reload.setOnAction(e -> loadProfiles());
         loginBtn.setOnAction(e -> loginAndShow());
+        cancelBtn.setOnAction(e -> cancelRefresh());
+        cancelBtn.setDisable(true);
+        refreshAllBtn.setOnAction(e -> refreshAll());
         clear.setOnAction(e -> newProfile());
         del.setOnAction(e -> deleteProfile());
 
-        HBox box = new HBox(8, save, reload, loginBtn, clear, del);
+        HBox box = new HBox(8, save, reload, loginBtn, cancelBtn, refreshAllBtn, clear, del);
         box.setAlignment(Pos.CENTER_RIGHT);
         return box;
     }
@@ -199,7 +276,17 @@ public class VertretungsplanApp extends Application {
         Tab timetableTab = new Tab("Stundenplan (PDF)", timetableBox);
         timetableTab.setClosable(false);
 
-        return new TabPane(vertretungTab, coursesTab, timetableTab);
+        // --- TAB 4: Übersicht aller Profile ("Alle aktualisieren") ---
+        dashboardArea.setEditable(false);
+        dashboardArea.setStyle("-fx-font-family: monospace;");
+        dashboardArea.setText("Noch nicht aktualisiert. \"Alle aktualisieren\" lädt alle gespeicherten Profile.");
+        VBox dashboardBox = new VBox(6, new Label("EVA-Überschneidungen aller gespeicherten Profile:"), dashboardArea);
+        VBox.setVgrow(dashboardArea, Priority.ALWAYS);
+        dashboardBox.setPadding(new Insets(8));
+        dashboardTab.setContent(dashboardBox);
+        dashboardTab.setClosable(false);
+
+        return new TabPane(vertretungTab, coursesTab, timetableTab, dashboardTab);
     }
 
     // Liest die Profil-Datei von der Festplatte und füllt das Kombinationsfeld
@@ -237,6 +324,53 @@ public class VertretungsplanApp extends Application {
         nameField.setText(props.getProperty("profile." + key + ".name", ""));
         usernameField.setText(props.getProperty("profile." + key + ".username", ""));
         passwordField.setText(props.getProperty("profile." + key + ".password", ""));
+        showCachedAndRefresh();
+    }
+
+    /**
+     * Zeigt sofort das zuletzt gespeicherte Ergebnis des Benutzers an und
+     * startet die Aktualisierung im Hintergrund. Passiert nichts, wenn
+     * dieser Benutzer schon angezeigt wird.
+     */
+    private void showCachedAndRefresh() {
+        String user = usernameField.getText().trim();
+        if (user.isEmpty() || user.equals(shownUser)) return;
+        shownUser = user;
+        shownResult = resultCache.load(user);
+        if (shownResult != null) {
+            showResult(shownResult);
+        } else {
+            clearResults();
+        }
+        if (!passwordField.getText().isEmpty()) loginAndShow();
+    }
+
+    // Schreibt ein Ergebnis in die drei Tabs
+    private void showResult(ResultCache.Result r) {
+        todayTitle.setText(r.today != null ? "Heute (" + r.today + ")" : "Heute");
+        tomorrowTitle.setText(r.tomorrow != null ? "Morgen (" + r.tomorrow + ")" : "Morgen");
+        todayArea.setText(formatList(r.todayMatches));
+        tomorrowArea.setText(formatList(r.tomorrowMatches));
+
+        coursesList.getItems().setAll(r.courses.isEmpty() ? List.of("Keine Kurse gefunden.") : r.courses);
+        timetableArea.setText(!r.timetableText.trim().isEmpty()
+                ? r.timetableText : "Kein Stundenplan gefunden/lesbar.");
+        showAsOf(r.savedAt);
+    }
+
+    private void showAsOf(long millis) {
+        asOfLabel.setText("Stand: " + AS_OF_FORMAT.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault())));
+    }
+
+    // leert die Tabs, z. B. für ein Profil ohne gespeichertes Ergebnis
+    private void clearResults() {
+        todayTitle.setText("Heute");
+        tomorrowTitle.setText("Morgen");
+        todayArea.setText("");
+        tomorrowArea.setText("");
+        coursesList.getItems().clear();
+        timetableArea.setText("");
+        asOfLabel.setText("");
     }
 
     // save or update the profile currently shown in the text fields
@@ -317,8 +451,80 @@ public class VertretungsplanApp extends Application {
         return sb.toString().trim();
     }
 
+    /**
+     * Aktualisiert alle gespeicherten Profile auf einmal über
+     * <code>BatchRefresh</code>: begrenzt viele Logins gleichzeitig, Plan
+     * und Stundenplan werden nur einmal geladen. Das Ergebnis steht danach
+     * im Tab "Übersicht", mit der Dauer pro Profil.
+     */
+    private void refreshAll() {
+        List<BatchRefresh.Profile> profiles = BatchRefresh.profiles(props);
+        if (profiles.isEmpty()) {
+            statusLabel.setText("Keine gespeicherten Profile mit Passwort.");
+            return;
+        }
+        // Anzeigenamen im FX-Thread kopieren, props wird nur hier gelesen
+        Map<String, String> names = new HashMap<>();
+        for (BatchRefresh.Profile p : profiles) {
+            names.put(p.key, props.getProperty("profile." + p.key + ".name", "").trim());
+        }
+
+        refreshAllBtn.setDisable(true);
+        dashboardTab.getTabPane().getSelectionModel().select(dashboardTab);
+        statusLabel.setText(profiles.size() + " Profile werden aktualisiert...");
+        executor.submit(() -> {
+            String text;
+            String status;
+            try {
+                BatchRefresh batch = new BatchRefresh(PLAN_RESOURCE_URL, TIMETABLE_PDF_URL, REFRESH_ALL_THREADS, sessions);
+                BatchRefresh.Result result = batch.run(profiles);
+                text = formatDashboard(result, names);
+                status = String.format(Locale.ROOT, "%d Profile in %d ms aktualisiert.", result.profiles.size(), result.totalMillis);
+            } catch (Exception ex) {
+                text = "";
+                status = "Fehler beim Abrufen der Daten: " + ex.getMessage();
+            }
+            String t = text;
+            String st = status;
+            Platform.runLater(() -> {
+                if (!t.isEmpty()) dashboardArea.setText(t);
+                statusLabel.setText(st);
+                refreshAllBtn.setDisable(false);
+            });
+        });
+    }
+
+    // Text für den Tab "Übersicht": pro Profil Dauer und Treffer für heute und morgen
+    private String formatDashboard(BatchRefresh.Result result, Map<String, String> names) {
+        StringBuilder sb = new StringBuilder();
+        if (result.timetableError != null) {
+            sb.append("Hinweis: Stundenplan konnte nicht gelesen werden: ").append(result.timetableError).append("\n\n");
+        }
+        for (BatchRefresh.ProfileResult r : result.profiles) {
+            String name = names.getOrDefault(r.profile.key, "");
+            sb.append("== ").append(name.isEmpty() ? r.profile.key : name)
+              .append(" (").append(r.millis).append(" ms)\n");
+            if (r.error != null) {
+                sb.append("  Fehler: ").append(r.error).append("\n\n");
+                continue;
+            }
+            for (String day : Arrays.asList(result.dayToday, result.dayTomorrow)) {
+                if (day == null) continue;
+                sb.append("  ").append(day).append("\n");
+                for (String line : formatList(r.matches.get(day)).split("\n")) {
+                    sb.append("    ").append(line).append("\n");
+                }
+            }
+            sb.append("\n");
+        }
+        sb.append(String.format(Locale.ROOT, "%d Profile in %d ms (%.2f Profile/s)",
+                result.profiles.size(), result.totalMillis, result.profilesPerSecond()));
+        return sb.toString();
+    }
+
     // triggered when the user presses the "Login & Kurse laden" button
-    // performs network calls on a background thread and updates UI later
+    // performs network calls in the background; each tab is updated as
+    // soon as its own data has arrived
     private void loginAndShow() {
         String user = usernameField.getText().trim();
         String pass = passwordField.getText();
@@ -327,98 +533,184 @@ public class VertretungsplanApp extends Application {
             return;
         }
 
-        loginBtn.setDisable(true);
-        statusLabel.setText("Login und Daten werden geladen... Bitte warten.");
-        
-        // Execute heavy web-scraping on a background thread to prevent UI freezing
-        new Thread(() -> {
-            try {
-                BonniwebClient client = new BonniwebClient();
-                if (!client.login(user, pass)) {
-                    Platform.runLater(() -> {
-                        statusLabel.setText("Login fehlgeschlagen.");
-                        loginBtn.setDisable(false);
-                    });
-                    return;
-                }
+        // eine noch laufende Aktualisierung wird abgebrochen statt doppelt zu laufen
+        if (current != null) current.cancel();
+        if (!user.equals(shownUser)) {
+            // manuell geänderte Zugangsdaten: gespeichertes Ergebnis dieses Benutzers zeigen
+            shownUser = user;
+            shownResult = resultCache.load(user);
+            if (shownResult != null) showResult(shownResult); else clearResults();
+        }
 
-                // 1. Fetch User Courses
-                List<String> courses = client.fetchCourses();
-                
-                // 2. Fetch User/Grade Timetable PDF
-                String timetableText = "";
-                String timetableWarning = "";
-                try {
-                    timetableText = client.fetchPdfText(TIMETABLE_PDF_URL);
-                } catch (Exception ignored) {}
-                
-                if (timetableText == null || timetableText.trim().isEmpty()) {
-                    timetableWarning = " Stundenplan konnte nicht gelesen werden.";
-                }
-                
-                // 3. Fetch current Substitution plan (Vertretungsplan)
-                String planText = client.fetchPlanTextFromResource(PLAN_RESOURCE_URL);
-                if (planText.isEmpty()) {
-                    Platform.runLater(() -> {
-                        statusLabel.setText("Plan nicht erreichbar.");
-                        loginBtn.setDisable(false);
-                    });
-                    return;
-                }
+        Refresh r = new Refresh(user);
+        current = r;
+        cancelBtn.setDisable(false);
+        showStages(r);
+        r.task = executor.submit(() -> startFetch(r, pass));
+    }
 
-                UntisParser parser = new UntisParser();
-                Map<String, List<PlanEntry>> allByDay = parser.parse(planText);
-                EvaOverlapService overlapService = new EvaOverlapService();
-                LinkedHashMap<String, List<EvaMatch>> filtered = overlapService.filterEva(allByDay, courses, timetableText);
-
-                List<String> days = new ArrayList<>(parser.splitByDay(planText).keySet());
-                String dayToday = parser.firstAvailableDay(planText);
-                String dayTomorrow = null;
-                if (dayToday != null) {
-                    int idx = days.indexOf(dayToday);
-                    if (idx >= 0 && idx + 1 < days.size()) dayTomorrow = days.get(idx + 1);
-                }
+    // bricht die laufende Aktualisierung ab; die Anzeige behält ihren Stand
+    private void cancelRefresh() {
+        if (current == null) return;
+        current.cancel();
+        current = null;
+        cancelBtn.setDisable(true);
+        statusLabel.setText("Abgebrochen.");
+    }
 
-                // Finalize data for UI Thread injection
-                final String fDayToday = dayToday;
-                final String fDayTomorrow = dayTomorrow;
-                final String fTimetableWarning = timetableWarning;
-                final String fTimetableText = timetableText;
-                final List<String> fCourses = courses;
-
-                // Bring results back to the GUI Thread safely
-                Platform.runLater(() -> {
-                    // Update Vertretungen view
-                    todayTitle.setText(fDayToday != null ? "Heute (" + fDayToday + ")" : "Heute");
-                    tomorrowTitle.setText(fDayTomorrow != null ? "Morgen (" + fDayTomorrow + ")" : "Morgen");
-
-                    List<EvaMatch> listToday = fDayToday == null
-                            ? Collections.emptyList()
-                            : filtered.getOrDefault(fDayToday, Collections.emptyList());
-                    List<EvaMatch> listTomorrow = fDayTomorrow == null
-                            ? Collections.emptyList()
-                            : filtered.getOrDefault(fDayTomorrow, Collections.emptyList());
-
-                    todayArea.setText(formatList(listToday));
-                    tomorrowArea.setText(formatList(listTomorrow));
-                    
-                    // Update Courses Tab
-                    coursesList.getItems().setAll(fCourses.isEmpty() ? List.of("Keine Kurse gefunden.") : fCourses);
-                    
-                    // Update Timetable Tab
-                    timetableArea.setText(fTimetableText != null && !fTimetableText.trim().isEmpty() 
-                                    ? fTimetableText : "Kein Stundenplan gefunden/lesbar.");
-
-                    statusLabel.setText("Erfolgreich geladen." + fTimetableWarning);
-                    loginBtn.setDisable(false);
-                });
-            } catch (Exception ex) {
-                Platform.runLater(() -> {
-                    statusLabel.setText("Fehler beim Abrufen der Daten: " + ex.getMessage());
-                    loginBtn.setDisable(false);
-                });
+    // Hintergrund: Login, dann die drei Abrufe starten und ihre Ergebnisse einzeln weiterreichen
+    private void startFetch(Refresh r, String pass) {
+        try {
+            BonniwebClient client = new BonniwebClient();
+            if (!sessions.login(client, r.user, pass)) {
+                onFx(r, () -> finish(r, "Login fehlgeschlagen."));
+                return;
             }
-        }).start();
+            if (r.cancelled) return;
+            onFx(r, () -> {
+                r.stages.put("Login", "fertig");
+                r.stages.put(FetchPipeline.STAGE_COURSES, "lädt");
+                r.stages.put(FetchPipeline.STAGE_TIMETABLE, "lädt");
+                r.stages.put(FetchPipeline.STAGE_PLAN, "lädt");
+                showStages(r);
+            });
+
+            // Courses, grade timetable PDF and substitution plan are
+            // independent, so fetch them concurrently; the timetable tab shows the PDF text
+            FetchPipeline p = FetchPipeline.start(client, PLAN_RESOURCE_URL, TIMETABLE_PDF_URL, null, true);
+            r.pipeline = p;
+            if (r.cancelled) p.cancel();
+
+            p.courses.whenComplete((courses, err) -> onFx(r, () -> onCourses(r, courses, err)));
+            // Matcher gleich im Hintergrund bauen, damit der FX-Thread nur noch filtert
+            p.timetable.thenApplyAsync(entry -> {
+                if (entry != null && !entry.isBlank()) entry.matcher();
+                return entry;
+            }, executor).whenComplete((entry, err) -> onFx(r, () -> onTimetable(r, entry, err)));
+            // kein Dokument: statt des Plans kam die Login-Seite
+            p.plan.thenApplyAsync(doc -> doc == null ? null : new UntisParser().parsePlan(doc), executor).whenComplete((plan, err) -> onFx(r, () -> onPlan(r, plan, err)));
+        } catch (Exception ex) {
+            onFx(r, () -> finish(r, "Fehler beim Abrufen der Daten: " + ex.getMessage()));
+        }
+    }
+
+    // führt die Aktion im FX-Thread aus, solange die Aktualisierung noch die aktuelle ist
+    private void onFx(Refresh r, Runnable action) {
+        Platform.runLater(() -> {
+            if (r == current && !r.cancelled) action.run();
+        });
+    }
+
+    private void onCourses(Refresh r, List<String> courses, Throwable err) {
+        r.coursesDone = true;
+        r.courses = err == null ? courses : Collections.emptyList();
+        r.stages.put(FetchPipeline.STAGE_COURSES, err == null ? "fertig" : "Fehler");
+        if (err != null) r.warning += " Kurse konnten nicht geladen werden.";
+        if (shownResult == null || !shownResult.courses.equals(r.courses)) {
+            coursesList.getItems().setAll(r.courses.isEmpty() ? List.of("Keine Kurse gefunden.") : r.courses);
+        }
+        showPlan(r);
+        showStagesOrFinish(r);
+    }
+
+    private void onTimetable(Refresh r, PdfTextCache.Entry entry, Throwable err) {
+        r.timetableDone = true;
+        r.timetable = err == null ? entry : null;
+        String text = r.timetable == null ? "" : r.timetable.text;
+        r.stages.put(FetchPipeline.STAGE_TIMETABLE, err == null ? "fertig" : "Fehler");
+        if (text.trim().isEmpty()) r.warning += " Stundenplan konnte nicht gelesen werden.";
+        if (shownResult == null || !shownResult.timetableText.equals(text)) {
+            timetableArea.setText(!text.trim().isEmpty() ? text : "Kein Stundenplan gefunden/lesbar.");
+        }
+        showPlan(r);
+        showStagesOrFinish(r);
+    }
+
+    private void onPlan(Refresh r, ParsedPlan plan, Throwable err) {
+        r.planDone = true;
+        if (err != null) {
+            r.planError = "Fehler beim Abrufen der Daten: " + FetchPipeline.unwrap(err).getMessage();
+        } else if (plan == null) {
+            r.planError = "Plan nicht erreichbar.";
+        }
+        r.plan = plan;
+        r.stages.put(FetchPipeline.STAGE_PLAN, r.planError == null ? "fertig" : "Fehler");
+        showPlan(r);
+        showStagesOrFinish(r);
+    }
+
+    /**
+     * Zeigt die Vertretungen, sobald Plan und Kurse da sind. Fehlt der
+     * Stundenplan noch, wird ohne ihn gefiltert und nach seinem Eintreffen
+     * erneut.
+     */
+    private void showPlan(Refresh r) {
+        ResultCache.Result result = currentResult(r);
+        if (result == null) return;
+        if (shownResult == null
+                || !Objects.equals(shownResult.today, result.today) || !Objects.equals(shownResult.tomorrow, result.tomorrow)
+                || !shownResult.todayMatches.equals(result.todayMatches) || !shownResult.tomorrowMatches.equals(result.tomorrowMatches)) {
+            todayTitle.setText(result.today != null ? "Heute (" + result.today + ")" : "Heute");
+            tomorrowTitle.setText(result.tomorrow != null ? "Morgen (" + result.tomorrow + ")" : "Morgen");
+            todayArea.setText(formatList(result.todayMatches));
+            tomorrowArea.setText(formatList(result.tomorrowMatches));
+        }
+    }
+
+    // Ergebnis aus den bisher eingetroffenen Stufen; null, solange Plan oder Kurse fehlen
+    private ResultCache.Result currentResult(Refresh r) {
+        if (r.plan == null || !r.coursesDone) return null;
+        TimetableMatcher timetable = r.timetable != null && !r.timetable.isBlank() ? r.timetable.matcher() : null;
+        LinkedHashMap<String, List<EvaMatch>> filtered = new EvaOverlapService().filterEva(r.plan.entriesByDay, r.courses, timetable);
+        return new ResultCache.Result(
+                r.plan.today, r.plan.tomorrow,
+                filtered.getOrDefault(r.plan.today, Collections.emptyList()),
+                filtered.getOrDefault(r.plan.tomorrow, Collections.emptyList()),
+                r.courses, r.timetable == null ? "" : r.timetable.text, System.currentTimeMillis());
+    }
+
+    private void showStagesOrFinish(Refresh r) {
+        if (!r.coursesDone || !r.timetableDone || !r.planDone) {
+            showStages(r);
+            return;
+        }
+        if (r.planError != null) {
+            finish(r, r.planError);
+            return;
+        }
+        ResultCache.Result result = currentResult(r);
+        // nur vollständige Ergebnisse merken, damit ein Teilausfall kein gutes überschreibt;
+        // geschrieben wird im Hintergrund, nicht im FX-Thread
+        if (r.warning.isEmpty()) executor.submit(() -> resultCache.store(r.user, result));
+        boolean changed = !result.sameContent(shownResult);
+        shownResult = result;
+        showAsOf(result.savedAt);
+        finish(r, (changed ? "Erfolgreich geladen." : "Aktuell, keine Änderungen.") + r.warning);
+    }
+
+    // Fortschritt pro Stufe, z. B. "Login: fertig · Kurse: lädt · ..."
+    private void showStages(Refresh r) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : r.stages.entrySet()) {
+            if (sb.length() > 0) sb.append(" · ");
+            sb.append(e.getKey()).append(": ").append(e.getValue());
+        }
+        statusLabel.setText(sb.toString());
+    }
+
+    // Abschluss einer Aktualisierung
+    private void finish(Refresh r, String status) {
+        if (r != current) return;
+        current = null;
+        cancelBtn.setDisable(true);
+        statusLabel.setText(status);
+    }
+
+    @Override
+    // Wird beim Schließen des Fensters aufgerufen; laufende Abrufe werden beendet
+    public void stop() {
+        if (current != null) current.cancel();
+        executor.shutdownNow();
     }
 
     public static void main(String[] args) {
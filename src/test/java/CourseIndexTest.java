@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vergleichstest: <code>CourseIndex.matchStatus</code> muss für jeden
+ * Eintrag dasselbe liefern wie der frühere Abgleich aus
+ * <code>CourseMatcher</code> mit drei <code>contains</code>‑Suchen pro
+ * Kurs, der hier als Referenz (<code>matchStatusWithContains</code>)
+ * erhalten bleibt.
+ */
+class CourseIndexTest {
+    // Kurse, wie sie in Moodle heißen
+    private static final List<String> COURSES = List.of(
+            "Q2-M-KRS-LK1", "Q2 E WGM GK2", "Q2_BIO_MUEL_GKB02", "Q1-PH-LAN-ZK", "Q2-SW-SCH-GKB1",
+            "Q2-D-KR-LKB", "Q2-M-K-GK1", "Q1-KU-ABCD-GK3", "Q2-CH-LK1-KRS");
+
+    @Test
+    void typicalEntries() {
+        CourseIndex index = new CourseIndex(COURSES);
+        assertEquals(CourseMatcher.MatchStatus.OK, index.matchStatus("M-LK1", "Krs"));
+        assertEquals(CourseMatcher.MatchStatus.LEVEL_MISMATCH, index.matchStatus("E-LK1", "Wgm"));
+        assertEquals(CourseMatcher.MatchStatus.OK, index.matchStatus("E-GK2", "Wgm"));
+        assertEquals(CourseMatcher.MatchStatus.OK, index.matchStatus("BIO-GK2", "Mue"));
+        // nur A–Z zählen, „Mül“ wird zu „ML“
+        assertEquals(CourseMatcher.MatchStatus.NONE, index.matchStatus("BIO-GK2", "Mül"));
+        // das Lehrerkürzel muss direkt auf das Fach folgen
+        assertEquals(CourseMatcher.MatchStatus.NONE, index.matchStatus("CH-GK1", "Krs"));
+        assertEquals(CourseMatcher.MatchStatus.NONE, index.matchStatus("M-LK1", "---"));
+        assertEquals(CourseMatcher.MatchStatus.NONE, index.matchStatus("", "Krs"));
+        assertEquals(CourseMatcher.MatchStatus.NONE, index.matchStatus(null, "Krs"));
+        String[][] entries = {{"M-LK1", "Krs"}, {"E-LK1", "Wgm"}, {"M-GK1", "K"}, {"M-GK2", "Krs"}, {"D", "Kr"},
+                {"PH-ZK", "Lan"}, {"SW-GK1", "+Sch"}, {"KU-GK3", "Abcd"}, {"KU", "Abc"}, {"m-lk1", "krs"}};
+        for (String[] e : entries) assertSameAsContains(COURSES, e[0], e[1]);
+    }
+
+    @Test
+    void randomEntriesMatchContains() {
+        String[] subjects = {"M", "E", "D", "BIO", "PH", "SW", "KU", "MA", "B", ""};
+        String[] levels = {"", "-GK1", "-GK2", "-LK1", "-LK", "-ZK", "-GKB02", "-LKB1", "-GK12", "-ZK3"};
+        String[] teachers = {"KRS", "KR", "K", "WGM", "WG", "LAN", "LANG", "ABCD", "MÜL", "X", ""};
+        String[] separators = {"-", " ", "_", "--"};
+        String[] lehrer = {"Krs", "Kr", "K", "Wgm", "wg", "Lan", "Lang", "Abcd", "Mül", "+Krs", "---", "", "K1", "Ab"};
+        Random r = new Random(42);
+        for (int it = 0; it < 100_000; it++) {
+            List<String> courses = new ArrayList<>();
+            // meist passt das Fach des Eintrags zu einem der Kurse
+            String subject = pick(r, subjects);
+            int n = r.nextInt(6);
+            for (int j = 0; j < n; j++) {
+                String sep = separators[r.nextInt(separators.length)];
+                StringBuilder c = new StringBuilder(r.nextBoolean() ? "Q2" : "Q1");
+                c.append(sep).append(r.nextInt(3) == 0 ? pick(r, subjects) : subject);
+                String level = pick(r, levels);
+                boolean levelFirst = r.nextInt(4) == 0;
+                if (levelFirst && !level.isEmpty()) c.append(sep).append(level.substring(1));
+                c.append(sep).append(pick(r, teachers));
+                if (!levelFirst && !level.isEmpty()) c.append(sep).append(level.substring(1));
+                String course = c.toString();
+                courses.add(r.nextBoolean() ? course : course.toLowerCase());
+            }
+            String fach = (r.nextInt(4) == 0 ? pick(r, subjects) : subject) + pick(r, levels);
+            if (r.nextInt(10) == 0) fach = fach.toLowerCase();
+            assertSameAsContains(courses, fach, pick(r, lehrer));
+        }
+    }
+
+    private static String pick(Random r, String[] values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    private static void assertSameAsContains(List<String> courses, String fach, String lehrer) {
+        assertEquals(matchStatusWithContains(fach, lehrer, courses), new CourseIndex(courses).matchStatus(fach, lehrer),
+                fach + " / " + lehrer + " / " + courses);
+    }
+
+    // der frühere CourseMatcher.matchStatus
+    private static CourseMatcher.MatchStatus matchStatusWithContains(String fach, String lehrer, List<String> courses) {
+        if (fach == null || fach.isEmpty()) return CourseMatcher.MatchStatus.NONE;
+        String subject = fach.split("-", 2)[0].trim().toUpperCase();
+        if (subject.isEmpty()) return CourseMatcher.MatchStatus.NONE;
+
+        String teacher = lehrer == null ? "" : lehrer.replaceAll("[^A-Za-z]", "").toUpperCase();
+        if (teacher.isEmpty()) return CourseMatcher.MatchStatus.NONE;
+        String teacherShort = teacher.length() > 3 ? teacher.substring(0, 3) : teacher;
+        String teacherShort2 = teacher.length() > 2 ? teacher.substring(0, 2) : teacher;
+
+        String levelType = "";
+        String levelNum = "";
+        Matcher lm = Pattern.compile("-(GK|LK|ZK)(\\d)?").matcher(fach.toUpperCase());
+        if (lm.find()) {
+            levelType = lm.group(1);
+            if (lm.groupCount() >= 2 && lm.group(2) != null) levelNum = lm.group(2);
+        }
+
+        String key1 = "-" + subject + "-" + teacher;
+        String key2 = "-" + subject + "-" + teacherShort;
+        String key3 = "-" + subject + "-" + teacherShort2;
+
+        boolean anyTeacherMatch = false;
+        boolean anyLevelMatch = false;
+
+        for (String c : courses) {
+            String s = c.replace(' ', '-').replace('_', '-').toUpperCase();
+            if (!(s.contains(key1) || s.contains(key2) || s.contains(key3))) continue;
+
+            anyTeacherMatch = true;
+            if (levelType.isEmpty()) return CourseMatcher.MatchStatus.OK;
+            if (courseMatchesLevel(s, levelType, levelNum)) anyLevelMatch = true;
+        }
+
+        if (!anyTeacherMatch) return CourseMatcher.MatchStatus.NONE;
+        if (levelType.isEmpty()) return CourseMatcher.MatchStatus.OK;
+        return anyLevelMatch ? CourseMatcher.MatchStatus.OK : CourseMatcher.MatchStatus.LEVEL_MISMATCH;
+    }
+
+    private static boolean courseMatchesLevel(String s, String levelType, String levelNum) {
+        String tokenBase = "-" + levelType; // -GK / -LK / -ZK
+        if (levelNum == null || levelNum.isEmpty()) {
+            return s.contains(tokenBase) || s.contains("-" + levelType.charAt(0) + "KB");
+        }
+
+        String pad2 = "0" + levelNum;
+        String token1 = tokenBase + levelNum; // -GK2
+        String token2 = "-" + levelType.charAt(0) + "KB" + pad2; // -GKB02 / -LKB02 / -ZKB02
+        String token3 = "-" + levelType.charAt(0) + "KB" + levelNum;
+        return s.contains(token1) || s.contains(token2) || s.contains(token3);
+    }
+}
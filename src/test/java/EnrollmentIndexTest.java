@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <code>EnrollmentIndex.filterEva</code> muss für jeden Benutzer genau das
+ * liefern, was <code>EvaOverlapService.filterEva</code> für dessen
+ * Kursliste liefert, auch bei Niveau‑Abweichungen und bei Einträgen, die
+ * nur über den Stundenplan passen.
+ */
+class EnrollmentIndexTest {
+    private static final String TIMETABLE = "1. M-GK1 Krs A101\nD-LK1 Wgm B201\n2. E-GK2 Lan C12\n";
+
+    private final UntisParser parser = new UntisParser();
+    private final EvaOverlapService service = new EvaOverlapService();
+
+    @Test
+    void sameAsFilterEvaPerUser() {
+        Map<String, List<PlanEntry>> plan = parser.parse("9.3. Montag\n"
+                + "Q2 1 M-GK1  A101 Krs EVA\n"        // alle über den Stundenplan, max mit Niveau-Abweichung
+                + "Q2 2 E-LK1  D101 Wgm EVA\n"        // nur max, mit Niveau-Abweichung
+                + "Q2 3 PH-GK2  PH204 Lan EVA\n"      // nur tom
+                + "Q2 4 PH-GK2  PH204 Lan Vertretung\n"
+                + "10.3. Dienstag\n"
+                + "Q2 5 D-LK1  B201 Wgm eva\n"        // nur über den Stundenplan
+                + "Q2 6 BIO-GK1  --- --- EVA\n");
+        Map<String, List<String>> courses = new LinkedHashMap<>();
+        courses.put("max", List.of("Q2-M-KRS-LK1", "Q2-E-WGM-GK2"));
+        courses.put("eva", List.of("Q2-M-KRS-GK1", "Q2-M-KRS-LK1"));
+        courses.put("tom", List.of("Q2-M-KRS-GK2", "Q2 PH LAN GK2"));
+        courses.put("ohne", List.of());
+
+        TimetableMatcher timetable = new TimetableMatcher(TIMETABLE);
+        Map<String, LinkedHashMap<String, List<EvaMatch>>> all = new EnrollmentIndex<>(courses).filterEva(plan, timetable);
+        assertSameAsService(plan, courses, timetable, all);
+        assertSameAsService(plan, courses, null, new EnrollmentIndex<>(courses).filterEva(plan, null));
+
+        List<EvaMatch> maxMonday = all.get("max").get("9.3. Montag");
+        assertEquals(2, maxMonday.size());
+        assertTrue(maxMonday.get(0).levelMismatch);
+        assertTrue(maxMonday.get(1).levelMismatch);
+        assertEquals(2, all.get("tom").get("9.3. Montag").size());
+        assertEquals(1, all.get("ohne").get("9.3. Montag").size());
+        assertEquals(1, all.get("ohne").get("10.3. Dienstag").size());
+    }
+
+    @Test
+    void randomPlansAndCourses() {
+        String[] subjects = {"M", "E", "D", "PH", "BIO"};
+        String[] levels = {"", "-GK1", "-GK2", "-LK1", "-LK", "-GKB02"};
+        String[] teachers = {"Krs", "Kr", "Wgm", "Lan", "Lang", "---"};
+        String[] infos = {"EVA", "EVA", "eva", "Vertretung", ""};
+        Random r = new Random(42);
+        TimetableMatcher timetable = new TimetableMatcher(TIMETABLE);
+        for (int it = 0; it < 2_000; it++) {
+            Map<String, List<PlanEntry>> plan = new LinkedHashMap<>();
+            for (int d = 0; d < 2; d++) {
+                List<PlanEntry> day = new ArrayList<>();
+                int n = r.nextInt(8);
+                for (int i = 0; i < n; i++) {
+                    day.add(new PlanEntry("Q2", Integer.toString(1 + r.nextInt(8)), pick(r, subjects) + pick(r, levels),
+                            "A101", pick(r, teachers), pick(r, infos)));
+                }
+                // mal als CompactDay, mal als einfache Liste
+                plan.put((9 + d) + ".3.", r.nextBoolean() ? day : compact(day));
+            }
+            Map<Integer, List<String>> courses = new LinkedHashMap<>();
+            int users = 1 + r.nextInt(5);
+            for (int u = 0; u < users; u++) {
+                List<String> list = new ArrayList<>();
+                int n = r.nextInt(4);
+                for (int i = 0; i < n; i++) {
+                    String level = pick(r, levels);
+                    list.add("Q2-" + pick(r, subjects) + "-" + pick(r, teachers).toUpperCase() + (level.isEmpty() ? "" : "-" + level.substring(1)));
+                }
+                courses.put(u, list);
+            }
+            TimetableMatcher tt = r.nextBoolean() ? timetable : null;
+            assertSameAsService(plan, courses, tt, new EnrollmentIndex<>(courses).filterEva(plan, tt));
+        }
+    }
+
+    private <U> void assertSameAsService(Map<String, List<PlanEntry>> plan, Map<U, List<String>> courses,
+                                         TimetableMatcher timetable, Map<U, LinkedHashMap<String, List<EvaMatch>>> all) {
+        assertEquals(courses.keySet(), all.keySet());
+        for (Map.Entry<U, List<String>> e : courses.entrySet()) {
+            assertEquals(service.filterEva(plan, e.getValue(), timetable), all.get(e.getKey()), e.getKey() + ": " + e.getValue());
+        }
+    }
+
+    private static CompactDay compact(List<PlanEntry> entries) {
+        CompactDay day = new CompactDay();
+        day.addAll(entries);
+        return day;
+    }
+
+    private static String pick(Random r, String[] values) {
+        return values[r.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Gleichzeitige Fehltreffer für dasselbe PDF dürfen den Indexer (PDFBox)
+ * nur einmal laufen lassen, und die Cache‑Datei ist immer vollständig.
+ */
+class PdfTextCacheTest {
+    private static final String TEXT = "1. M-GK1 Krs A101\nD-LK1 Wgm B201\n2. E-GK2 Lan C12\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void concurrentMissesIndexOnce() throws Exception {
+        Path pdf = Files.write(dir.resolve("plan.pdf"), new byte[]{1, 2, 3});
+        PdfTextCache cache = new PdfTextCache(1_000_000, dir.resolve("cache"), 4);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        PdfTextCache.Indexer slow = (p, into) -> {
+            runs.incrementAndGet();
+            started.countDown();
+            Thread.sleep(300);
+            into.append(TEXT);
+        };
+
+        int threads = 5;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<PdfTextCache.Entry>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) results.add(pool.submit(() -> cache.get(pdf, slow, false)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            PdfTextCache.Entry first = results.get(0).get();
+            for (Future<PdfTextCache.Entry> f : results) assertSame(first, f.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1, cache.misses());
+        assertTrue(cache.get(pdf, slow, false).matcher().matches("M", "Krs", "1"));
+    }
+
+    // der Text für einen Aufrufer mit keepText entsteht auch, wenn gerade einer ohne lädt
+    @Test
+    void keepTextAfterIndexWithoutText() throws Exception {
+        Path pdf = Files.write(dir.resolve("plan.pdf"), new byte[]{4, 5, 6});
+        PdfTextCache cache = new PdfTextCache(1_000_000, dir.resolve("cache"), 4);
+        PdfTextCache.Indexer indexer = (p, into) -> into.append(TEXT);
+
+        assertEquals(null, cache.get(pdf, indexer, false).text);
+        assertEquals(TEXT, cache.get(pdf, indexer, true).text);
+    }
+
+    @Test
+    void writesNoTemporaryFiles() throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        PdfTextCache cache = new PdfTextCache(1_000_000, cacheDir, 4);
+        cache.get(new byte[]{7, 8, 9}, bytes -> TEXT);
+
+        try (var files = Files.list(cacheDir)) {
+            List<Path> list = files.toList();
+            assertEquals(1, list.size());
+            assertFalse(list.get(0).toString().endsWith(".tmp"));
+            assertEquals(TEXT, Files.readString(list.get(0)));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Der Dauerbetrieb (<code>PlanChangeTracker</code>) muss dieselben
+ * Einträge sehen wie GUI und Kommandozeile
+ * (<code>UntisParser.parsePlan(Document, String)</code>), auch wenn nur
+ * einzelne Tage neu geparst werden.
+ */
+class PlanChangeTrackerTest {
+    private final UntisParser parser = new UntisParser();
+
+    // Tabellenzeilen, bei denen die Textfassung ihre Spaltengrenzen verliert
+    private static final String[][] MONDAY = {
+            {"Q2", "4", "E-GK2", "D101", "Wgm", "EVA"},
+            {"Q2", "5", "", "A12", "Krs", "Entfall"},
+            {"Q2", "6", "BIO GK1", "E003", "Mül", "EVA Aufgaben in Moodle"},
+    };
+    private static final String[][] TUESDAY = {
+            {"Q2", "1", "M-LK1", "---", "Lan", "EVA"},
+            {"Q2", "2", "SW-GK2", "B201", "", "Vertretung"},
+    };
+
+    @Test
+    void matchesTableParser() {
+        Document doc = plan(MONDAY, TUESDAY);
+        String text = BonniwebClient.planText(doc);
+        ParsedPlan expected = parser.parsePlan(doc, text);
+        // sonst prüft der Test nichts: die Textfassung liefert hier andere Einträge
+        assertNotEquals(parser.parsePlan(text).entriesByDay, expected.entriesByDay);
+
+        PlanChangeTracker tracker = new PlanChangeTracker();
+        PlanChangeTracker.Update update = tracker.update(doc, text, Collections.emptyList(), null);
+        assertEquals(expected.entriesByDay, update.plan.entriesByDay);
+        assertEquals(expected.dayOrder, update.plan.dayOrder);
+    }
+
+    @Test
+    void changedDayMatchesTableParser() {
+        PlanChangeTracker tracker = new PlanChangeTracker();
+        Document first = plan(MONDAY, TUESDAY);
+        tracker.update(first, BonniwebClient.planText(first), Collections.emptyList(), null);
+
+        String[][] tuesday = {TUESDAY[0], {"Q2", "2", "SW-GK2", "B204", "", "Vertretung"}};
+        Document second = plan(MONDAY, tuesday);
+        String text = BonniwebClient.planText(second);
+        PlanChangeTracker.Update update = tracker.update(second, text, Collections.emptyList(), null);
+
+        assertEquals(1, update.reparsedDays);
+        assertEquals(parser.parsePlan(second, text).entriesByDay, update.plan.entriesByDay);
+        assertEquals(1, update.entryChanges.size());
+        assertEquals(PlanChange.Kind.CHANGED, update.entryChanges.get(0).kind);
+        assertTrue(update.matchChanges.isEmpty());
+    }
+
+    @Test
+    void unchangedPlanIsNotReparsed() {
+        PlanChangeTracker tracker = new PlanChangeTracker();
+        Document doc = plan(MONDAY, TUESDAY);
+        String text = BonniwebClient.planText(doc);
+        tracker.update(doc, text, Collections.emptyList(), null);
+
+        PlanChangeTracker.Update update = tracker.update(doc, text, Collections.emptyList(), null);
+        assertEquals(0, update.reparsedDays);
+        assertTrue(update.entryChanges.isEmpty());
+    }
+
+    // Plan im Aufbau der Untis-Seite (wie MockBonniwebServer) mit zwei Tagen
+    private static Document plan(String[][] monday, String[][] tuesday) {
+        StringBuilder sb = new StringBuilder("<html><body>");
+        day(sb, "9.3. Montag", monday);
+        day(sb, "10.3. Dienstag", tuesday);
+        return Jsoup.parse(sb.append("</body></html>").toString());
+    }
+
+    private static void day(StringBuilder sb, String heading, String[][] rows) {
+        sb.append("<center><div class=\"mon_title\">").append(heading).append("</div>\n");
+        sb.append("<table class=\"mon_list\"><tr class=\"list\"><th>Klasse(n)</th><th>Stunde</th>"
+                + "<th>(Fach)</th><th>Raum</th><th>Vertreter</th><th>Art</th></tr>\n");
+        for (String[] row : rows) {
+            sb.append("<tr class=\"list\">");
+            for (String cell : row) sb.append("<td>").append(cell).append("</td>");
+            sb.append("</tr>\n");
+        }
+        sb.append("</table></center>\n");
+    }
+}
@@ -0,0 +1,189 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Vergleichstest: <code>PlanLineScanner.scan</code> muss für jede Zeile
+ * denselben <code>PlanEntry</code> liefern wie die frühere Regex‑Kaskade
+ * aus <code>UntisParser</code>, die hier als Referenz
+ * (<code>parseLineWithPatterns</code>) erhalten bleibt.
+ */
+class PlanLineScannerTest {
+    // Standardzeile mit Klasse, Stunde, Fach, Raum, Lehrer, Info
+    private static final Pattern ENTRY_PATTERN = Pattern.compile("^(\\S+)\\s+(\\d{1,2})\\s+(.*?)\\s{2,}(\\S+)\\s+(\\S+)\\s*(.*)$");
+    private static final Pattern FALLBACK_PATTERN = Pattern.compile("^(\\S+)\\s+(\\d{1,2})\\s+(\\S+)\\s+(\\S+)\\s+(\\S+)\\s*(.*)$");
+    private static final Pattern COMPACT_PATTERN = Pattern.compile("^(Q\\d)(\\d{1,2})(.*?)(---|[A-Z]{2,5}\\d{3,4})(.+)$");
+
+    private final UntisParser parser = new UntisParser();
+    private final PlanLineScanner scanner = new PlanLineScanner();
+
+    // Zeilen, wie sie in der Textfassung echter Pläne vorkommen
+    private static final String[] PLAN_LINES = {
+            "Q2 4 E-GK2  D101 Wgm EVA",
+            "Q2 4 E-GK2 --- Wgm EVA",
+            "Q1 3 M-LK1  A12 Krs Vertretung",
+            "Q2 6 BIO-GK1 E003 Mül Raumänderung",
+            "Q2 2 SW-GK2  --- --- Entfall",
+            "Q1 5 D-GK3  Aula Sch EVA Aufgaben in Moodle",
+            "Q2 1 PH-LK1 D101 Lan",
+            "Q24E-GK2---WgmEVA",
+            "Klasse(n) Stunde (Fach) Raum Vertreter Art",
+            "8.3. Montag",
+            "Nachrichten zum Tag",
+            "Q2 4",
+    };
+
+    @Test
+    void planLinesMatchRegexCascade() {
+        for (String line : PLAN_LINES) assertSameAsPatterns(line);
+    }
+
+    @Test
+    void twoDigitHours() {
+        assertEntry("Q2 10 M-LK1  D101 Wgm EVA", "Q2", "10", "M-LK1", "D101", "Wgm", "EVA");
+        assertEntry("Q2 11 E-GK2 --- Wgm EVA", "Q2", "11", "E-GK2", "---", "Wgm", "EVA");
+        assertSameAsPatterns("Q2 123 E-GK2 --- Wgm EVA");
+        assertSameAsPatterns("Q210M-LK1---KrsEVA");
+    }
+
+    @Test
+    void emptyFachWithThreeSpaces() {
+        assertEntry("Q2 4   D101 Wgm EVA", "Q2", "4", "", "D101", "Wgm", "EVA");
+        assertEntry("Q2 4    --- Wgm", "Q2", "4", "", "---", "Wgm", "");
+        assertSameAsPatterns("Q2 4  D101 Wgm EVA");
+    }
+
+    @Test
+    void compactLines() {
+        assertEntry("Q24E-GK2---WgmEVA", "Q2", "4", "E-GK2", "---", "Wgm", "EVA");
+        assertEntry("Q24E-GK2---WgmVA", "Q2", "4", "E-GK2", "---", "Wgm", "VA");
+        assertEntry("Q13M-LK1AB101Krs", "Q1", "3", "M-LK1", "AB101", "Krs", "");
+        assertSameAsPatterns("Q24E-GK2---");
+        assertSameAsPatterns("Q2");
+    }
+
+    @Test
+    void fourDigitRooms() {
+        assertEntry("Q2 5 BIO-GK2  BIO1234 Krs Vertretung", "Q2", "5", "BIO-GK2", "BIO1234", "Krs", "Vertretung");
+        assertEntry("Q25BIO-GK2AB1234KrsEVA", "Q2", "5", "BIO-GK2", "AB1234", "Krs", "EVA");
+        assertSameAsPatterns("Q25BIO-GK2AB1234");
+        assertSameAsPatterns("Q25BIO-GK2ABCDEF1234KrsEVA");
+    }
+
+    // Zeilentrenner innerhalb einer Zeile zählen wie Leerzeichen
+    @Test
+    void lineSeparators() {
+        for (String sep : new String[]{"\u2028", "\u2029", "\u0085"}) {
+            for (String line : new String[]{
+                    "Q2 4 E-GK2  D101" + sep + "Wgm EVA",
+                    "Q2 4 E-GK2" + sep + sep + "D101 Wgm EVA",
+                    "Q2 4" + sep + "  D101 Wgm EVA",
+                    "Q2 4 E-GK2  D101 Wgm EVA" + sep + "Aufgaben",
+                    "Q24E-GK2---Wgm" + sep + "EVA"}) {
+                PlanEntry expected = parseLineWithPatterns(line.replace(sep, " "));
+                assertEquals(expected, scanner.scan(line), line);
+                assertEquals(entries(expected), parser.parseBlock(line), line);
+            }
+        }
+        assertEquals(new PlanEntry("Q2", "4", "E-GK2", "D101", "Wgm", "EVA"), scanner.scan("Q2 4 E-GK2  D101\u2028Wgm EVA"));
+    }
+
+    @Test
+    void randomLinesMatchRegexCascade() {
+        String[] atoms = {" ", "  ", "   ", "\t", "Q", "Q2", "Q1", "4", "12", "123", "E-GK2", "---", "--",
+                "Wgm", "EVA", "VA", "A", "AB", "ABCDEF", "1234", "D101", "BIO2", "é", "Entfall", "5", "0"};
+        Random r = new Random(42);
+        for (int it = 0; it < 50_000; it++) {
+            StringBuilder sb = new StringBuilder();
+            int k = 1 + r.nextInt(10);
+            for (int j = 0; j < k; j++) sb.append(atoms[r.nextInt(atoms.length)]);
+            String line = sb.toString().trim();
+            if (!line.isEmpty()) assertSameAsPatterns(line);
+        }
+    }
+
+    @Test
+    void headerLineIsSkipped() {
+        assertEquals(List.of(), parser.parseBlock("Klasse(n)Stunde(Fach)RaumVertreterArt\n"));
+        assertNull(scanner.scan("Nachrichten zum Tag"));
+    }
+
+    private void assertEntry(String line, String klasse, String stunde, String fach, String raum, String lehrer, String info) {
+        assertEquals(new PlanEntry(klasse, stunde, fach, raum, lehrer, info), scanner.scan(line), line);
+        assertSameAsPatterns(line);
+    }
+
+    private void assertSameAsPatterns(String line) {
+        assertEquals(parseLineWithPatterns(line), scanner.scan(line), line);
+    }
+
+    private static List<PlanEntry> entries(PlanEntry e) {
+        List<PlanEntry> list = new ArrayList<>();
+        if (e != null) list.add(e);
+        return list;
+    }
+
+    // frühere Regex-Kaskade aus UntisParser für eine einzelne Zeile
+    private static PlanEntry parseLineWithPatterns(String line) {
+        Matcher em = ENTRY_PATTERN.matcher(line);
+        if (!em.matches()) em = FALLBACK_PATTERN.matcher(line);
+        if (em.matches()) {
+            return new PlanEntry(
+                    em.group(1),
+                    em.group(2),
+                    em.group(3).trim(),
+                    em.group(4),
+                    em.group(5),
+                    em.group(6).trim()
+            );
+        }
+
+        Matcher cm = COMPACT_PATTERN.matcher(line);
+        if (cm.matches()) {
+            String tail = cm.group(5).trim();
+            String info = "";
+            if (tail.endsWith("EVA")) { info = "EVA"; tail = tail.substring(0, tail.length() - 3); }
+            else if (tail.endsWith("VA")) { info = "VA"; tail = tail.substring(0, tail.length() - 2); }
+
+            return new PlanEntry(
+                    cm.group(1),
+                    cm.group(2),
+                    cm.group(3).trim(),
+                    cm.group(4),
+                    tail.trim(),
+                    info
+            );
+        }
+
+        // Tokenbasierter Fallback für tabellenartige Zeilen wie:
+        // Q2 4 E-GK2 --- Wgm EVA
+        String[] tokens = line.split("\\s+");
+        if (tokens.length >= 5 && tokens[0].matches("[A-Za-z0-9]+") && tokens[1].matches("\\d{1,2}")) {
+            String klasse = tokens[0];
+            String stunde = tokens[1];
+            String info = "";
+            int end = tokens.length;
+            if ("EVA".equalsIgnoreCase(tokens[end - 1]) || "VA".equalsIgnoreCase(tokens[end - 1])) {
+                info = tokens[end - 1].toUpperCase();
+                end--;
+            }
+            if (end >= 5) {
+                String lehrer = tokens[end - 1];
+                String raum = tokens[end - 2];
+                String fach = String.join(" ", Arrays.copyOfRange(tokens, 2, end - 2)).trim();
+                if (!fach.isEmpty()) {
+                    return new PlanEntry(klasse, stunde, fach, raum, lehrer, info);
+                }
+            }
+        }
+        return null;
+    }
+}
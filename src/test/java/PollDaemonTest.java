@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Abstände von <code>PollDaemon.nextDelayMillis</code>: Schulvormittag,
+ * Tag, Nacht, Wochenende, Sonntagabend und kurz nach einer Änderung.
+ */
+class PollDaemonTest {
+    private static final long MINUTE = 60_000;
+    // weit zurückliegende Änderung
+    private static final long NO_CHANGE = 24 * 60 * MINUTE;
+    // Montag, 9. März 2026
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2026, 3, 9, 0, 0);
+
+    @Test
+    void schoolDays() {
+        assertEquals(DayOfWeek.MONDAY, MONDAY.getDayOfWeek());
+        assertEquals(3 * MINUTE, delay(MONDAY.withHour(7), NO_CHANGE));
+        assertEquals(3 * MINUTE, delay(MONDAY.plusDays(4).withHour(8).withMinute(59), NO_CHANGE));
+        assertEquals(10 * MINUTE, delay(MONDAY.withHour(9), NO_CHANGE));
+        assertEquals(10 * MINUTE, delay(MONDAY.withHour(12), NO_CHANGE));
+        assertEquals(10 * MINUTE, delay(MONDAY.withHour(21).withMinute(59), NO_CHANGE));
+    }
+
+    @Test
+    void night() {
+        assertEquals(60 * MINUTE, delay(MONDAY.withHour(23), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(MONDAY.withHour(22), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(MONDAY.plusDays(1).withHour(3), NO_CHANGE));
+        assertEquals(3 * MINUTE, delay(MONDAY.plusDays(1).withHour(6), NO_CHANGE));
+    }
+
+    @Test
+    void weekendAndSundayEvening() {
+        LocalDateTime saturday = MONDAY.plusDays(5);
+        LocalDateTime sunday = MONDAY.plusDays(6);
+        assertEquals(60 * MINUTE, delay(saturday.withHour(8), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(saturday.withHour(12), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(sunday.withHour(8), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(sunday.withHour(16).withMinute(59), NO_CHANGE));
+        // Sonntagabend erscheint oft der Plan für Montag
+        assertEquals(10 * MINUTE, delay(sunday.withHour(17), NO_CHANGE));
+        assertEquals(10 * MINUTE, delay(sunday.withHour(18), NO_CHANGE));
+        assertEquals(60 * MINUTE, delay(sunday.withHour(23), NO_CHANGE));
+    }
+
+    @Test
+    void afterChange() {
+        assertEquals(2 * MINUTE, delay(MONDAY.withHour(12), 5 * MINUTE));
+        assertEquals(2 * MINUTE, delay(MONDAY.withHour(12), 0));
+        assertEquals(2 * MINUTE, delay(MONDAY.withHour(7), 5 * MINUTE));
+        assertEquals(2 * MINUTE, delay(MONDAY.withHour(23), 5 * MINUTE));
+        assertEquals(2 * MINUTE, delay(MONDAY.plusDays(5).withHour(12), 14 * MINUTE));
+        assertEquals(10 * MINUTE, delay(MONDAY.withHour(12), 15 * MINUTE));
+        assertEquals(10 * MINUTE, delay(MONDAY.withHour(12), 20 * MINUTE));
+    }
+
+    @Test
+    void jitterStaysWithinTwentyPercent() {
+        LocalDateTime noon = MONDAY.withHour(12);
+        assertEquals(8 * MINUTE, PollDaemon.nextDelayMillis(noon, NO_CHANGE, fixed(0)));
+        assertEquals(12 * MINUTE, PollDaemon.nextDelayMillis(noon, NO_CHANGE, fixed(1)), 1);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            long d = PollDaemon.nextDelayMillis(noon, NO_CHANGE, random);
+            if (d < 8 * MINUTE || d > 12 * MINUTE) throw new AssertionError("Abstand außerhalb: " + d);
+        }
+    }
+
+    // ohne Zufallsanteil
+    private static long delay(LocalDateTime now, long millisSinceChange) {
+        return PollDaemon.nextDelayMillis(now, millisSinceChange, fixed(0.5));
+    }
+
+    private static Random fixed(double value) {
+        return new Random() {
+            @Override
+            public double nextDouble() {
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <code>SessionPool</code> muss eine vorhandene Datei öffnen können,
+ * Einträge der älteren Fassung (ohne Basis‑URL) verwerfen und beim
+ * Speichern die Sitzungen anderer Prozesse erhalten.
+ */
+class SessionPoolTest {
+    private static final String SERVER = "https://bonniweb.de";
+    private static final String MOCK = "http://localhost:8080";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void opensExistingFileAndDropsLegacyEntries() throws Exception {
+        Path file = dir.resolve("sessions.properties");
+        Files.writeString(file, "session.max.cookies=MoodleSession=alt\n"
+                + "session.max.saved=1\n"
+                + "session.https\\://bonniweb.de|max.cookies=MoodleSession=neu\n"
+                + "session.https\\://bonniweb.de|max.saved=2\n");
+
+        SessionPool pool = new SessionPool(file);
+        assertEquals(Map.of("MoodleSession", "neu"), pool.load(SERVER, "max"));
+
+        pool.store(SERVER, "eva", Map.of("MoodleSession", "e"));
+        Properties saved = read(file);
+        assertFalse(saved.containsKey("session.max.cookies"));
+        assertFalse(saved.containsKey("session.max.saved"));
+        assertTrue(saved.containsKey("session." + SERVER + "|max.cookies"));
+    }
+
+    @Test
+    void sessionsAreKeptPerServer() {
+        SessionPool pool = new SessionPool(dir.resolve("sessions.properties"));
+        pool.store(MOCK, "max", Map.of("MoodleSession", "mock"));
+
+        assertTrue(pool.load(SERVER, "max").isEmpty());
+        assertEquals(Map.of("MoodleSession", "mock"), pool.load(MOCK, "max"));
+    }
+
+    // zwei Prozesse (hier: zwei Pools) auf derselben Datei überschreiben sich nicht
+    @Test
+    void concurrentPoolsKeepEachOthersSessions() {
+        Path file = dir.resolve("sessions.properties");
+        SessionPool gui = new SessionPool(file);
+        SessionPool daemon = new SessionPool(file);
+
+        gui.store(SERVER, "max", Map.of("MoodleSession", "a"));
+        daemon.store(SERVER, "eva", Map.of("MoodleSession", "b"));
+        gui.store(SERVER, "tom", Map.of("MoodleSession", "c"));
+        daemon.remove(SERVER, "eva");
+
+        SessionPool fresh = new SessionPool(file);
+        assertEquals(Map.of("MoodleSession", "a"), fresh.load(SERVER, "max"));
+        assertEquals(Map.of("MoodleSession", "c"), fresh.load(SERVER, "tom"));
+        assertTrue(fresh.load(SERVER, "eva").isEmpty());
+    }
+
+    private static Properties read(Path file) throws Exception {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        return props;
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vergleichstest: <code>TimetableMatcher.matches</code> muss für jede
+ * Anfrage dasselbe liefern wie der frühere zeilenweise Abgleich, der hier
+ * als Referenz (<code>LineMatcher</code>) erhalten bleibt – auch mit
+ * Umlauten, Groß‑/Kleinschreibung und den Sonderzeichen der Zeichenklassen.
+ */
+class TimetableMatcherTest {
+    private static final String TIMETABLE = "1. M-GK1 Krs A101\nD-LK1 Wgm B201\n2. E-GK2 Lan C12\n3) PH Müller PH204\r\n";
+
+    @Test
+    void typicalQueries() {
+        TimetableMatcher matcher = new TimetableMatcher(TIMETABLE);
+        assertTrue(matcher.matches("M-GK1", "Krs", "1"));
+        // die Stunde schränkt nicht ein
+        assertTrue(matcher.matches("M-LK1", "Kr", "5"));
+        assertTrue(matcher.matches("D-LK1", "Wgm", "2"));
+        assertFalse(matcher.matches("E-GK2", "Krs", "2"));
+        assertFalse(matcher.matches("BIO-GK1", "Krs", "1"));
+        assertFalse(matcher.matches("M-GK1", "---", "1"));
+        assertFalse(matcher.matches(null, "Krs", "1"));
+        assertFalse(new TimetableMatcher(null).matches("M", "Krs", "1"));
+        String[][] queries = {{"M-GK1", "Krs", "1"}, {"PH", "Mü", "3"}, {"PH", "Mueller", "3"}, {"ph", "mü", null},
+                {"E", "La", "2"}, {"E", "L", "2"}, {"GK", "Lan", "2"}, {"A", "Krs", "1"}};
+        for (String[] q : queries) assertSameAsLines(TIMETABLE, q[0], q[1], q[2]);
+    }
+
+    @Test
+    void randomTimetablesMatchLineSearch() {
+        String[] words = {"1.", "2)", "3", "10", "E", "M", "PH", "Ph", "BIO", "WGM", "Wgm", "wg", "ABC", "Müller", "ÄÖ",
+                "├ä", "ß", "-", "GK", "Raum", "D101", "  ", "\t", "x", "ñ", "Ñ", "ss"};
+        Random r = new Random(11);
+        for (int it = 0; it < 3_000; it++) {
+            StringBuilder sb = new StringBuilder();
+            int lines = r.nextInt(30);
+            for (int l = 0; l < lines; l++) {
+                int k = r.nextInt(7);
+                for (int j = 0; j < k; j++) sb.append(pick(r, words)).append(r.nextInt(3) == 0 ? "" : " ");
+                sb.append(r.nextInt(10) == 0 ? "\r\n" : "\n");
+            }
+            String text = sb.toString();
+            TimetableMatcher matcher = new TimetableMatcher(text);
+            LineMatcher reference = new LineMatcher(text);
+            for (int q = 0; q < 300; q++) {
+                String fach = pick(r, words) + (r.nextBoolean() ? "-GK2" : "");
+                String lehrer = r.nextInt(30) == 0 ? null : pick(r, words) + (r.nextBoolean() ? pick(r, words) : "");
+                String stunde = Integer.toString(1 + r.nextInt(11));
+                assertEquals(reference.matches(fach, lehrer, stunde), matcher.matches(fach, lehrer, stunde),
+                        () -> fach + " / " + lehrer + " / " + stunde + "\n" + text);
+            }
+        }
+    }
+
+    private static String pick(Random r, String[] values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    private static void assertSameAsLines(String text, String fach, String lehrer, String stunde) {
+        assertEquals(new LineMatcher(text).matches(fach, lehrer, stunde), new TimetableMatcher(text).matches(fach, lehrer, stunde),
+                fach + " / " + lehrer + " / " + stunde);
+    }
+
+    // der frühere TimetableMatcher: Zeilen nach Stunden gruppiert und bei jeder Anfrage durchsucht
+    private static class LineMatcher {
+        private static final Pattern HOUR_PATTERN = Pattern.compile("^(\\d{1,2})[\\.)]?\\b");
+        private final Map<String, List<String>> hourLines = new LinkedHashMap<>();
+        private final List<String> allLines = new ArrayList<>();
+
+        LineMatcher(String text) {
+            if (text == null) return;
+            String normalized = text.replace("\r\n", "\n").replace("\r", "\n").replace('\u00A0', ' ');
+            String currentHour = null;
+            for (String raw : normalized.split("\\n")) {
+                String line = raw.trim();
+                if (line.isEmpty()) continue;
+                allLines.add(line);
+
+                Matcher m = HOUR_PATTERN.matcher(line);
+                if (m.find()) currentHour = m.group(1);
+                if (currentHour != null) hourLines.computeIfAbsent(currentHour, k -> new ArrayList<>()).add(line);
+            }
+        }
+
+        boolean matches(String fach, String lehrer, String stunde) {
+            String subject = normalizeSubject(fach);
+            if (subject.isEmpty()) return false;
+
+            String teacher = normalizeTeacher(lehrer);
+            if (teacher.isEmpty()) return false;
+            String teacherShort = teacher.length() > 3 ? teacher.substring(0, 3) : teacher;
+            String teacherShort2 = teacher.length() > 2 ? teacher.substring(0, 2) : teacher;
+
+            List<String> lines = stunde != null && hourLines.containsKey(stunde) ? hourLines.get(stunde) : allLines;
+            if (lineMatch(lines, subject, teacher, teacherShort, teacherShort2)) return true;
+            return lineMatch(allLines, subject, teacher, teacherShort, teacherShort2);
+        }
+
+        private boolean lineMatch(List<String> lines, String subject, String teacher, String t3, String t2) {
+            for (String line : lines) {
+                String upper = line.toUpperCase();
+                if (!containsToken(upper, subject)) continue;
+                if (upper.contains(teacher) || upper.contains(t3) || upper.contains(t2)) return true;
+            }
+            return false;
+        }
+
+        private boolean containsToken(String line, String token) {
+            for (String p : line.toUpperCase().split("[^A-Z├ä├û├£]+")) {
+                if (p.equals(token)) return true;
+            }
+            return false;
+        }
+
+        private String normalizeSubject(String fach) {
+            if (fach == null) return "";
+            String up = fach.toUpperCase();
+            int idx = up.indexOf('-');
+            String subject = idx > 0 ? up.substring(0, idx) : up;
+            return subject.replaceAll("[^A-Z├ä├û├£]", "").trim();
+        }
+
+        private String normalizeTeacher(String lehrer) {
+            if (lehrer == null) return "";
+            return lehrer.replaceAll("[^A-Za-z├ä├û├£├ñ├Â├╝]", "").toUpperCase().trim();
+        }
+    }
+}
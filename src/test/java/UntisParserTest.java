@@ -0,0 +1,102 @@
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tabellen‑ und Textweg von <code>UntisParser</code> auf einer
+ * aufgezeichneten Untis‑Seite (<code>untis-plan.htm</code>, Namen
+ * geändert). Auf dieser Seite kann auch die Textfassung jede Zeile
+ * eindeutig zerlegen; beide Wege müssen dort dasselbe liefern.
+ */
+class UntisParserTest {
+    private final UntisParser parser = new UntisParser();
+
+    @Test
+    void recordedPageTablesMatchText() throws Exception {
+        Document doc = recorded();
+        ParsedPlan tables = parser.parsePlan(doc);
+        ParsedPlan text = parser.parsePlan(BonniwebClient.planText(doc));
+
+        assertEquals(List.of("9.3. Montag", "10.3. Dienstag", "11.3. Mittwoch"), tables.dayOrder);
+        assertEquals(text.dayOrder, tables.dayOrder);
+        assertEquals(text.entriesByDay, tables.entriesByDay);
+        for (String day : tables.dayOrder) assertEquals(text.isReleased(day), tables.isReleased(day), day);
+        assertEquals(text.today, tables.today);
+        assertEquals(text.tomorrow, tables.tomorrow);
+        // der mitgegebene Text wird bei vorhandenen Tabellen gar nicht gelesen
+        assertEquals(tables.entriesByDay, parser.parsePlan(doc, "").entriesByDay);
+    }
+
+    @Test
+    void recordedPageEntries() throws Exception {
+        ParsedPlan plan = parser.parsePlan(recorded());
+
+        List<PlanEntry> monday = plan.entries("9.3. Montag");
+        assertEquals(7, monday.size());
+        assertEquals(new PlanEntry("Q1", "5", "E-LK1", "AB101", "Lan", ""), monday.get(1));
+        assertEquals(new PlanEntry("Q2", "2", "SW-GK2", "---", "---", "EVA"), monday.get(3));
+        assertEquals(new PlanEntry("Q2", "10", "PH-GK1", "PH204", "Lan", "EVA"), monday.get(6));
+
+        assertTrue(plan.isReleased("9.3. Montag"));
+        assertFalse(plan.isReleased("10.3. Dienstag"));
+        assertEquals("9.3. Montag", plan.today);
+        assertEquals("10.3. Dienstag", plan.tomorrow);
+    }
+
+    // hier verliert die Textfassung die Spaltengrenzen, die Tabellen nicht
+    @Test
+    void tablesKeepColumns() {
+        Document doc = Jsoup.parse("<html><body><div class=\"mon_title\">9.3. Montag</div>"
+                + "<table class=\"mon_list\"><tr><th>Klasse(n)</th><th>Stunde</th><th>(Fach)</th><th>Raum</th><th>Vertreter</th><th>Art</th></tr>"
+                + "<tr><td>Q2</td><td>3</td><td>M-GK1</td><td>A12</td><td>Krs</td><td>Raumänderung</td></tr></table></body></html>");
+        assertEquals(List.of(new PlanEntry("Q2", "3", "M-GK1", "A12", "Krs", "Raumänderung")),
+                parser.parsePlan(doc).entries("9.3. Montag"));
+        assertTrue(parser.parsePlan(BonniwebClient.planText(doc)).entries("9.3. Montag").isEmpty());
+    }
+
+    // ohne Untis-Tabelle (z. B. als vorformatierter Text) gilt die Textfassung
+    @Test
+    void fallsBackToTextWithoutTables() {
+        Document doc = Jsoup.parse("<html><body><pre>9.3. Montag\nQ2 4 E-GK2  D101 Wgm EVA\n"
+                + "10.3. Dienstag\nVertretungen sind nicht freigegeben\nQ2 1 M-LK1 --- Krs EVA\n</pre></body></html>");
+        ParsedPlan plan = parser.parsePlan(doc);
+
+        assertEquals(List.of("9.3. Montag", "10.3. Dienstag"), plan.dayOrder);
+        assertEquals(List.of(new PlanEntry("Q2", "4", "E-GK2", "D101", "Wgm", "EVA")), plan.entries("9.3. Montag"));
+        assertFalse(plan.isReleased("10.3. Dienstag"));
+    }
+
+    // Klasse, Fach, Raum und Lehrer sind über Abrufe hinweg dieselben Instanzen, die Info nur innerhalb eines Abrufs
+    @Test
+    void parsedDaysShareColumnValues() throws Exception {
+        PlanEntry monday = parser.parsePlan(recorded()).entries("9.3. Montag").get(6);
+        PlanEntry again = parser.parsePlan(recorded()).entries("9.3. Montag").get(6);
+        PlanEntry fromText = parser.parsePlan("11.3. Mittwoch\nQ1 3 PH-GK1 PH204 Lan EVA\n").entries("11.3. Mittwoch").get(0);
+
+        assertEquals(monday, again);
+        assertSame(monday.klasse, again.klasse);
+        assertSame(monday.fach, again.fach);
+        assertSame(monday.raum, again.raum);
+        assertSame(monday.lehrer, again.lehrer);
+        assertSame(monday.fach, fromText.fach);
+        assertSame(monday.raum, fromText.raum);
+        assertSame(monday.lehrer, fromText.lehrer);
+
+        ParsedPlan plan = parser.parsePlan(recorded());
+        assertSame(plan.entries("9.3. Montag").get(3).info, plan.entries("9.3. Montag").get(6).info);
+    }
+
+    private static Document recorded() throws Exception {
+        try (InputStream in = UntisParserTest.class.getResourceAsStream("/untis-plan.htm")) {
+            return Jsoup.parse(in, "UTF-8", "https://bonniweb.de/pluginfile.php/1323/mod_resource/content/7/w00024.htm");
+        }
+    }
+}